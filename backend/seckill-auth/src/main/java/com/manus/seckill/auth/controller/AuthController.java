@@ -7,6 +7,7 @@ import com.manus.seckill.auth.dto.RegisterRequest;
 import com.manus.seckill.auth.dto.UserDTO;
 import com.manus.seckill.auth.service.UserService;
 import com.manus.seckill.auth.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -50,12 +51,13 @@ public class AuthController {
             // Extract token from "Bearer <token>" format
             String actualToken = token.startsWith("Bearer ") ? token.substring(7) : token;
             
-            // Validate token
-            if (!jwtUtil.isTokenValid(actualToken)) {
+            // Parse once, then validate and read from the same claims
+            Claims claims = jwtUtil.parseToken(actualToken);
+            if (!jwtUtil.isValid(claims)) {
                 return Result.error(401, "Invalid or expired token");
             }
 
-            Long userId = jwtUtil.getUserIdFromToken(actualToken);
+            Long userId = jwtUtil.getUserId(claims);
             UserDTO userInfo = userService.getUserInfo(userId);
             return Result.success(userInfo);
         } catch (Exception e) {
@@ -64,4 +66,26 @@ public class AuthController {
         }
     }
 
+    /**
+     * Token for opening /seckill/subscribe, see {@link JwtUtil#generateStreamToken}
+     */
+    @GetMapping("/stream-token")
+    public Result<String> getStreamToken(@RequestHeader("Authorization") String token) {
+        try {
+            String actualToken = token.startsWith("Bearer ") ? token.substring(7) : token;
+
+            // Only a login token may mint one, so stream tokens cannot be chained into a long-lived credential
+            Claims claims = jwtUtil.parseToken(actualToken);
+            if (!jwtUtil.isValid(claims) || !jwtUtil.isLoginToken(claims)) {
+                return Result.error(401, "Invalid or expired token");
+            }
+
+            return Result.success(jwtUtil.generateStreamToken(jwtUtil.getUserId(claims),
+                    (String) claims.get("username")));
+        } catch (Exception e) {
+            log.error("Failed to issue stream token", e);
+            return Result.error(e.getMessage());
+        }
+    }
+
 }
@@ -1,9 +1,11 @@
 package com.manus.seckill.auth.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -17,51 +19,83 @@ import java.util.Map;
 @Component
 public class JwtUtil {
 
+    /**
+     * Scope claim of a stream token; absent on login tokens
+     */
+    public static final String SCOPE_CLAIM = "scope";
+    public static final String STREAM_SCOPE = "stream";
+
     @Value("${jwt.secret:seckill-system-secret-key-2024-manus-ai-generated}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.stream-expiration:120000}")
+    private Long streamExpiration;
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    /**
+     * Key and parser are immutable and thread-safe, build them once
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(Long userId, String username) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("username", username);
-        return createToken(claims, userId.toString());
+        return createToken(claims, userId.toString(), expiration);
+    }
+
+    /**
+     * Short-lived token that the gateway accepts only as the access_token query
+     * parameter of stream routes, for browser EventSource which cannot send headers
+     */
+    public String generateStreamToken(Long userId, String username) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", username);
+        claims.put(SCOPE_CLAIM, STREAM_SCOPE);
+        return createToken(claims, userId.toString(), streamExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long expirationMs) {
         Date now = new Date();
-        Date expirationDate = new Date(now.getTime() + expiration);
+        Date expirationDate = new Date(now.getTime() + expirationMs);
 
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expirationDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Claims parseToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
-            log.error("Failed to parse JWT token", e);
+            // Expired and forged tokens are routine, a stack trace per request is not useful
+            log.warn("Failed to parse JWT token: {}", e.getMessage());
             return null;
         }
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
+        return getUserId(parseToken(token));
+    }
+
+    public Long getUserId(Claims claims) {
         if (claims != null) {
             return ((Number) claims.get("userId")).longValue();
         }
@@ -77,8 +111,18 @@ public class JwtUtil {
     }
 
     public boolean isTokenValid(String token) {
-        Claims claims = parseToken(token);
+        return isValid(parseToken(token));
+    }
+
+    public boolean isValid(Claims claims) {
         return claims != null && !claims.getExpiration().before(new Date());
     }
 
+    /**
+     * Whether claims came from a login token rather than a scoped one such as a stream token
+     */
+    public boolean isLoginToken(Claims claims) {
+        return claims.get(SCOPE_CLAIM) == null;
+    }
+
 }
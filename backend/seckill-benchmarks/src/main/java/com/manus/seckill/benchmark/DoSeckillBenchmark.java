@@ -0,0 +1,104 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.benchmark.support.RedisFixture;
+import com.manus.seckill.benchmark.support.SeckillServiceFixture;
+import com.manus.seckill.seckill.dto.SeckillResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * doSeckill throughput for every buyer hitting one activity, comparing the
+ * legacy Redisson lock path with the single-script atomic path.
+ * <p>
+ * Each thread buys as a fresh user on every call. Paths for those users are
+ * issued before each iteration so the measured call is the real request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class DoSeckillBenchmark {
+
+    static final long ACTIVITY_ID = 1L;
+
+    @Param({"atomic", "lock"})
+    public String stockMode;
+
+    /**
+     * Fresh users per thread per iteration, must exceed what one thread can buy in an iteration
+     */
+    @Param({"200000"})
+    public int usersPerIteration;
+
+    RedisFixture redis;
+    SeckillServiceFixture fixture;
+    final AtomicLong userBlocks = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = RedisFixture.start();
+        fixture = new SeckillServiceFixture(redis, stockMode);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        redis.stringRedisTemplate().delete("seckill:stream");
+        redis.stringRedisTemplate().delete("seckill:users:" + ACTIVITY_ID);
+        redis.stringRedisTemplate().opsForValue().set("seckill:stock:" + ACTIVITY_ID, "1000000000");
+        // Sale window the deduct script checks, open for the whole run
+        redis.stringRedisTemplate().opsForHash().putAll("seckill:meta:" + ACTIVITY_ID,
+                Map.of("startTime", "0", "endTime", String.valueOf(Long.MAX_VALUE)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+        redis.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Buyer {
+
+        long firstUser;
+        String[] paths;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void issuePaths(DoSeckillBenchmark benchmark) {
+            firstUser = benchmark.userBlocks.getAndIncrement() * benchmark.usersPerIteration + 1;
+            paths = new String[benchmark.usersPerIteration];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = benchmark.fixture.pathSigner().issue(ACTIVITY_ID, firstUser + i);
+            }
+            next = 0;
+        }
+
+    }
+
+    @Benchmark
+    public SeckillResult doSeckill(Buyer buyer) {
+        int i = buyer.next;
+        buyer.next = i + 1 == buyer.paths.length ? 0 : i + 1;
+        return fixture.service().doSeckill(ACTIVITY_ID, buyer.firstUser + i, buyer.paths[i]);
+    }
+
+}
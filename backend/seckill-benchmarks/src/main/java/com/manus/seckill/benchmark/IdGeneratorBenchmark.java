@@ -0,0 +1,63 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.common.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * Order SN generation under contention: the former millisecond clock plus
+ * UUID prefix against the snowflake generator, one id at a time and in
+ * blocks of a stream consumer batch. A fixed worker id keeps Redis out of it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new SnowflakeIdGenerator();
+        setField(generator, "configuredWorkerId", 1);
+        setField(generator, "maxBackwardMs", 5000L);
+        generator.init();
+    }
+
+    @Benchmark
+    public String uuidOrderSn() {
+        return "ORD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    public String snowflakeOrderSn() {
+        return "ORD" + generator.nextId();
+    }
+
+    /**
+     * Ids per operation are 200, divide the score accordingly
+     */
+    @Benchmark
+    public long snowflakeBlockOf200() {
+        return generator.nextBlock(200);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.auth.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * JWT verification cost, for a single parse, for the old validate-then-read
+ * sequence in AuthController.getUserInfo and for the single parse it uses now
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParseBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", "seckill-system-secret-key-2024-manus-ai-generated");
+        setField(jwtUtil, "expiration", 86400000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken(1L, "testuser1");
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    @Benchmark
+    public Long validateThenReadUserId() {
+        return jwtUtil.isTokenValid(token) ? jwtUtil.getUserIdFromToken(token) : null;
+    }
+
+    @Benchmark
+    public Long parseOnceThenReadUserId() {
+        Claims claims = jwtUtil.parseToken(token);
+        return jwtUtil.isValid(claims) ? jwtUtil.getUserId(claims) : null;
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.benchmark.support.RedisFixture;
+import com.manus.seckill.product.cache.CacheMetrics;
+import com.manus.seckill.product.cache.CompactRedisSerializer;
+import com.manus.seckill.product.cache.IdExistenceFilter;
+import com.manus.seckill.product.cache.NearCache;
+import com.manus.seckill.product.dto.ProductDTO;
+import com.manus.seckill.product.service.impl.ProductServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * getProductById when the product is already cached, served from the
+ * in-process tier or, with nearCache=false, from Redis where valueFormat
+ * picks how the DTO is decoded on every hit. The mapper is left unset, so a
+ * cache miss fails the benchmark instead of hiding in it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ProductCacheBenchmark {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    @Param({"true", "false"})
+    public boolean nearCache;
+
+    @Param({"compact", "jdk"})
+    public String valueFormat;
+
+    private RedisFixture redis;
+    private RedisMessageListenerContainer listenerContainer;
+    private ProductServiceImpl productService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = RedisFixture.start();
+        RedisTemplate<String, Object> redisTemplate = redis.redisTemplate("jdk".equals(valueFormat)
+                ? new JdkSerializationRedisSerializer()
+                : new CompactRedisSerializer(false));
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redis.connectionFactory());
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        NearCache cache = new NearCache();
+        setField(cache, "stringRedisTemplate", redis.stringRedisTemplate());
+        setField(cache, "listenerContainer", listenerContainer);
+        setField(cache, "enabled", nearCache);
+        setField(cache, "maxSize", 10000L);
+        setField(cache, "ttlSeconds", 3600L);
+        cache.init();
+
+        // Every id passes; the filter is a single in-memory lookup either way
+        IdExistenceFilter idFilter = new IdExistenceFilter();
+        setField(idFilter, "enabled", false);
+
+        CacheMetrics cacheMetrics = new CacheMetrics();
+        setField(cacheMetrics, "meterRegistry", new SimpleMeterRegistry());
+        cacheMetrics.init();
+
+        productService = new ProductServiceImpl();
+        setField(productService, "redisTemplate", redisTemplate);
+        setField(productService, "nearCache", cache);
+        setField(productService, "idExistenceFilter", idFilter);
+        setField(productService, "cacheMetrics", cacheMetrics);
+
+        ProductDTO product = new ProductDTO(PRODUCT_ID, "iPhone 15 Pro Max", new BigDecimal("9999.00"), 1000,
+                "Latest flagship smartphone from Apple", 1);
+        redisTemplate.opsForValue().set("product:" + PRODUCT_ID, product, 1, TimeUnit.HOURS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        listenerContainer.stop();
+        redis.close();
+    }
+
+    @Benchmark
+    public ProductDTO getProductById() {
+        return productService.getProductById(PRODUCT_ID);
+    }
+
+}
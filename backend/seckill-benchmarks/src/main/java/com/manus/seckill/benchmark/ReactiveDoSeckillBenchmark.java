@@ -0,0 +1,96 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.benchmark.support.RedisFixture;
+import com.manus.seckill.benchmark.support.SeckillServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * doSeckill on the reactive service with many requests outstanding from
+ * two threads, the way a few event-loop threads carry many connections.
+ * One operation issues inFlight calls at once and waits for all of them;
+ * multiply the score by inFlight for requests per second and compare with
+ * the atomic case of {@link DoSeckillBenchmark}, which needs a thread per
+ * outstanding request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(2)
+@State(Scope.Benchmark)
+public class ReactiveDoSeckillBenchmark {
+
+    @Param({"1000", "10000"})
+    public int inFlight;
+
+    /**
+     * Users with an issued path per iteration, reused round robin once exhausted
+     */
+    @Param({"2000000"})
+    public int usersPerIteration;
+
+    RedisFixture redis;
+    SeckillServiceFixture fixture;
+    final AtomicInteger nextUser = new AtomicInteger();
+    long firstUser;
+    String[] paths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = RedisFixture.start();
+        fixture = new SeckillServiceFixture(redis, "atomic");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetActivity() {
+        redis.stringRedisTemplate().delete("seckill:stream");
+        redis.stringRedisTemplate().delete("seckill:users:" + DoSeckillBenchmark.ACTIVITY_ID);
+        redis.stringRedisTemplate().opsForValue().set("seckill:stock:" + DoSeckillBenchmark.ACTIVITY_ID, "1000000000");
+        // Sale window the deduct script checks, open for the whole run
+        redis.stringRedisTemplate().opsForHash().putAll("seckill:meta:" + DoSeckillBenchmark.ACTIVITY_ID,
+                Map.of("startTime", "0", "endTime", String.valueOf(Long.MAX_VALUE)));
+
+        firstUser += usersPerIteration;
+        nextUser.set(0);
+        paths = new String[usersPerIteration];
+        for (int i = 0; i < usersPerIteration; i++) {
+            paths[i] = fixture.pathSigner().issue(DoSeckillBenchmark.ACTIVITY_ID, firstUser + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public Long doSeckill() {
+        return Flux.range(0, inFlight)
+                .map(i -> Math.floorMod(nextUser.getAndIncrement(), usersPerIteration))
+                .flatMap(i -> fixture.reactiveService().doSeckill(DoSeckillBenchmark.ACTIVITY_ID,
+                        firstUser + i, paths[i]), inFlight)
+                .count()
+                .block();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.benchmark.support.RedisFixture;
+import com.manus.seckill.benchmark.support.SeckillServiceFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of issuing a seckill path for a new user
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class SeckillPathBenchmark {
+
+    private RedisFixture redis;
+    private SeckillServiceFixture fixture;
+    private final AtomicLong userIds = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = RedisFixture.start();
+        fixture = new SeckillServiceFixture(redis, "atomic");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public String getSeckillPath() {
+        return fixture.service().getSeckillPath(DoSeckillBenchmark.ACTIVITY_ID, userIds.incrementAndGet());
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.manus.seckill.benchmark;
+
+import com.manus.seckill.seckill.entity.SeckillOrder;
+import com.manus.seckill.seckill.service.impl.SeckillStreamConsumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one stream record into a SeckillOrder
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamParseBenchmark {
+
+    private final MapRecord<String, Object, Object> record = StreamRecords.newRecord()
+            .in("seckill:stream")
+            .withId(RecordId.of("1700000000000-0"))
+            .ofMap(Map.<Object, Object>of("data", "1234567:42"));
+
+    @Benchmark
+    public SeckillOrder parse() {
+        return SeckillStreamConsumer.parse(record);
+    }
+
+}
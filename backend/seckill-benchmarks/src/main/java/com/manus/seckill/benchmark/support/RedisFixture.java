@@ -0,0 +1,105 @@
+package com.manus.seckill.benchmark.support;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * Redis for benchmarks. Starts an embedded server on a free port unless
+ * -Dbenchmark.redis.host (and optionally .port) points at an existing one.
+ */
+public final class RedisFixture implements AutoCloseable {
+
+    private final RedisServer server;
+    private final String host;
+    private final int port;
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    private RedisFixture(RedisServer server, String host, int port) {
+        this.server = server;
+        this.host = host;
+        this.port = port;
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        reactiveStringRedisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    public static RedisFixture start() throws IOException {
+        String externalHost = System.getProperty("benchmark.redis.host");
+        if (externalHost != null) {
+            int externalPort = Integer.getInteger("benchmark.redis.port", 6379);
+            return new RedisFixture(null, externalHost, externalPort);
+        }
+
+        int port = freePort();
+        RedisServer server = new RedisServer(port);
+        server.start();
+        return new RedisFixture(server, "localhost", port);
+    }
+
+    public LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    public StringRedisTemplate stringRedisTemplate() {
+        return stringRedisTemplate;
+    }
+
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate() {
+        return reactiveStringRedisTemplate;
+    }
+
+    /**
+     * Configured like the product service template: string keys, the given value serializer
+     */
+    public RedisTemplate<String, Object> redisTemplate(RedisSerializer<Object> valueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setHashKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    public String uri() {
+        return "redis://" + host + ":" + port;
+    }
+
+    public void flushAll() {
+        stringRedisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.manus.seckill.benchmark.support;
+
+import com.manus.seckill.seckill.common.SeckillMetrics;
+import com.manus.seckill.seckill.service.impl.LocalStockShard;
+import com.manus.seckill.seckill.service.impl.ParticipantIndex;
+import com.manus.seckill.seckill.service.impl.ReactiveSeckillServiceImpl;
+import com.manus.seckill.seckill.service.impl.SeckillPathSigner;
+import com.manus.seckill.seckill.service.impl.SeckillResultNotifier;
+import com.manus.seckill.seckill.service.impl.SeckillServiceImpl;
+import com.manus.seckill.seckill.service.impl.SeckillStockEngine;
+import com.manus.seckill.seckill.service.impl.SoldOutRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+/**
+ * Wires SeckillServiceImpl and its collaborators by hand, the way Spring
+ * would, against a {@link RedisFixture}. MySQL is not needed: nothing on
+ * the request path touches it.
+ */
+public final class SeckillServiceFixture implements AutoCloseable {
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedissonClient redissonClient;
+    private final SeckillPathSigner pathSigner;
+    private final SeckillServiceImpl service;
+    private final ReactiveSeckillServiceImpl reactiveService;
+
+    public SeckillServiceFixture(RedisFixture redis, String stockMode) {
+        StringRedisTemplate stringRedisTemplate = redis.stringRedisTemplate();
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(redis.connectionFactory());
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        Config config = new Config();
+        config.useSingleServer().setAddress(redis.uri());
+        redissonClient = Redisson.create(config);
+
+        SoldOutRegistry soldOutRegistry = new SoldOutRegistry();
+        setField(soldOutRegistry, "stringRedisTemplate", stringRedisTemplate);
+        setField(soldOutRegistry, "listenerContainer", listenerContainer);
+        soldOutRegistry.init();
+
+        LocalStockShard localStockShard = new LocalStockShard();
+        setField(localStockShard, "stringRedisTemplate", stringRedisTemplate);
+        setField(localStockShard, "soldOutRegistry", soldOutRegistry);
+        setField(localStockShard, "enabled", false);
+        setField(localStockShard, "batchSize", 50L);
+
+        ParticipantIndex participantIndex = new ParticipantIndex();
+        setField(participantIndex, "stringRedisTemplate", stringRedisTemplate);
+        setField(participantIndex, "mode", "set");
+        setField(participantIndex, "expectedInsertions", 1_000_000L);
+        setField(participantIndex, "fpp", 0.001);
+        participantIndex.init();
+
+        SeckillStockEngine stockEngine = new SeckillStockEngine();
+        setField(stockEngine, "stringRedisTemplate", stringRedisTemplate);
+        setField(stockEngine, "localStockShard", localStockShard);
+        setField(stockEngine, "participantIndex", participantIndex);
+
+        SeckillResultNotifier resultNotifier = new SeckillResultNotifier();
+        setField(resultNotifier, "stringRedisTemplate", stringRedisTemplate);
+        setField(resultNotifier, "listenerContainer", listenerContainer);
+        setField(resultNotifier, "sseTimeoutMs", 300000L);
+        resultNotifier.init();
+
+        pathSigner = new SeckillPathSigner();
+        setField(pathSigner, "secret", "seckill-path-secret-key-2024");
+        setField(pathSigner, "previousSecret", "");
+        setField(pathSigner, "ttlSeconds", 300L);
+        setField(pathSigner, "rotationHours", 24L);
+        setField(pathSigner, "oneTime", false);
+        pathSigner.init();
+
+        SeckillMetrics seckillMetrics = new SeckillMetrics();
+        setField(seckillMetrics, "meterRegistry", new SimpleMeterRegistry());
+        seckillMetrics.init();
+
+        service = new SeckillServiceImpl();
+        setField(service, "stringRedisTemplate", stringRedisTemplate);
+        setField(service, "seckillStockEngine", stockEngine);
+        setField(service, "localStockShard", localStockShard);
+        setField(service, "participantIndex", participantIndex);
+        setField(service, "seckillResultNotifier", resultNotifier);
+        setField(service, "seckillPathSigner", pathSigner);
+        setField(service, "soldOutRegistry", soldOutRegistry);
+        setField(service, "redissonClient", redissonClient);
+        setField(service, "seckillMetrics", seckillMetrics);
+        setField(service, "stockMode", stockMode);
+
+        reactiveService = new ReactiveSeckillServiceImpl();
+        setField(reactiveService, "reactiveStringRedisTemplate", redis.reactiveStringRedisTemplate());
+        setField(reactiveService, "seckillStockEngine", stockEngine);
+        setField(reactiveService, "localStockShard", localStockShard);
+        setField(reactiveService, "participantIndex", participantIndex);
+        setField(reactiveService, "soldOutRegistry", soldOutRegistry);
+        setField(reactiveService, "seckillPathSigner", pathSigner);
+        setField(reactiveService, "seckillMetrics", seckillMetrics);
+        setField(reactiveService, "stockMode", "atomic");
+        setField(reactiveService, "maxInFlight", Integer.MAX_VALUE);
+        reactiveService.init();
+    }
+
+    public SeckillPathSigner pathSigner() {
+        return pathSigner;
+    }
+
+    public SeckillServiceImpl service() {
+        return service;
+    }
+
+    public ReactiveSeckillServiceImpl reactiveService() {
+        return reactiveService;
+    }
+
+    @Override
+    public void close() {
+        redissonClient.shutdown();
+        listenerContainer.stop();
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.manus.seckill.common;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+
+/**
+ * Layout of the final seckill results shared by the order service, which
+ * writes them, and the seckill service, which serves and pushes them. A
+ * result lives under seckill:result:{activityId}:{userId} as
+ * status:orderId:message, and every write is announced on
+ * seckill:result:notify as {activityId}:{userId}|{encoded result}.
+ */
+public final class SeckillResults {
+
+    public static final String KEY_PREFIX = "seckill:result:";
+    public static final String CHANNEL = "seckill:result:notify";
+
+    public static final int SUCCESS = 1;
+    public static final int FAILED = -1;
+
+    private static final char NOTIFICATION_SEPARATOR = '|';
+
+    private SeckillResults() {
+    }
+
+    public static String subscriber(Long activityId, Long userId) {
+        return activityId + ":" + userId;
+    }
+
+    public static String key(Long activityId, Long userId) {
+        return KEY_PREFIX + subscriber(activityId, userId);
+    }
+
+    /**
+     * status:orderId:message, orderId and message may be empty
+     */
+    public static String encode(int status, Long orderId, String message) {
+        return status + ":" + (orderId == null ? "" : orderId) + ":" + (message == null ? "" : message);
+    }
+
+    public static Entry decode(String value) {
+        String[] parts = value.split(":", 3);
+        return new Entry(Integer.parseInt(parts[0]),
+                parts.length > 1 && !parts[1].isEmpty() ? Long.parseLong(parts[1]) : null,
+                parts.length > 2 ? parts[2] : null);
+    }
+
+    /**
+     * Store one encoded result and announce it; meant to be queued on a pipeline
+     */
+    public static void write(StringRedisConnection conn, Long activityId, Long userId,
+                             String encoded, long ttlSeconds) {
+        String subscriber = subscriber(activityId, userId);
+        conn.setEx(KEY_PREFIX + subscriber, ttlSeconds, encoded);
+        conn.publish(CHANNEL, subscriber + NOTIFICATION_SEPARATOR + encoded);
+    }
+
+    /**
+     * Subscriber of a notification, or null when it is malformed
+     */
+    public static String notifiedSubscriber(String notification) {
+        int separator = notification.indexOf(NOTIFICATION_SEPARATOR);
+        return separator <= 0 ? null : notification.substring(0, separator);
+    }
+
+    /**
+     * Encoded result carried by a notification whose subscriber was found
+     */
+    public static String notifiedResult(String notification) {
+        return notification.substring(notification.indexOf(NOTIFICATION_SEPARATOR) + 1);
+    }
+
+    /**
+     * A decoded result
+     */
+    public static final class Entry {
+
+        private final int status;
+        private final Long orderId;
+        private final String message;
+
+        public Entry(int status, Long orderId, String message) {
+            this.status = status;
+            this.orderId = orderId;
+            this.message = message;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+    }
+
+}
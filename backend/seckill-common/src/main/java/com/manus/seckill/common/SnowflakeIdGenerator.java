@@ -0,0 +1,253 @@
+package com.manus.seckill.common;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since 2024-01-01, 10 bits
+ * of worker id and 12 bits of sequence. Ids only grow, so rows keyed by them
+ * append to the right edge of the primary key and order SN indexes instead
+ * of splitting pages at random.
+ * <p>
+ * Worker ids are leased from one Redis hash shared by the seckill and order
+ * services, so seckill order ids and order ids never collide. Issuing is a
+ * single CAS on the last (millisecond, sequence) pair; {@link #nextBlock}
+ * reserves a run of consecutive ids with one CAS for batch inserts. When the
+ * clock steps back by up to max-backward-ms, ids keep coming from the last
+ * millisecond issued and run ahead of the clock until it catches up; a larger
+ * step fails the call rather than risk duplicates.
+ * <p>
+ * A leased worker id is only used until a local deadline, two thirds of
+ * lease-ms after the last successful renew was sent, which is before Redis
+ * can hand the id to another node. Past it, for example while Redis is
+ * unreachable, issuing fails until a renew succeeds again.
+ * <p>
+ * Also registered as the MyBatis-Plus {@link IdentifierGenerator}, so
+ * {@code IdType.ASSIGN_ID} entities draw from the same sequence. Outside the
+ * services' scanned packages, so the seckill and order applications import it.
+ */
+@Slf4j
+@Component
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Fixed worker id, 0-1023; -1 leases one from Redis
+     */
+    @Value("${seckill.id.worker-id:-1}")
+    private int configuredWorkerId;
+
+    @Value("${seckill.id.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${seckill.id.max-backward-ms:5000}")
+    private long maxBackwardMs;
+
+    /**
+     * 2024-01-01T00:00:00Z
+     */
+    private static final long EPOCH = 1704067200000L;
+    private static final int WORKER_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_WORKERS = 1 << WORKER_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * Largest run {@link #nextBlock} hands out, one millisecond of sequence
+     */
+    public static final int MAX_BLOCK = 1 << SEQUENCE_BITS;
+
+    private static final String WORKER_LEASE_KEY = "seckill:id:workers";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        LEASE_SCRIPT.setLocation(new ClassPathResource("lua/lease_worker_id.lua"));
+        LEASE_SCRIPT.setResultType(List.class);
+    }
+
+    /**
+     * Last id issued without the worker bits: milliseconds since EPOCH, then sequence
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * Worker id in use and until when; replaced as a whole, never modified
+     */
+    private volatile Lease lease;
+    private String owner;
+
+    /**
+     * Wall clock in milliseconds, replaced in tests to step it back
+     */
+    private LongSupplier clock = System::currentTimeMillis;
+    private ScheduledExecutorService renewer;
+
+    @PostConstruct
+    public void init() {
+        if (configuredWorkerId >= 0) {
+            if (configuredWorkerId >= MAX_WORKERS) {
+                throw new IllegalStateException("seckill.id.worker-id must be below " + MAX_WORKERS);
+            }
+            lease = new Lease(configuredWorkerId, Long.MAX_VALUE);
+            log.info("Snowflake id generator using fixed worker id {}", configuredWorkerId);
+            return;
+        }
+
+        owner = hostName() + "-" + ProcessHandle.current().pid() + "-" + Integer.toHexString(
+                ThreadLocalRandom.current().nextInt());
+        lease(ThreadLocalRandom.current().nextInt(MAX_WORKERS));
+        long lead = (last.get() >>> SEQUENCE_BITS) - (clock.getAsLong() - EPOCH);
+        if (lead > maxBackwardMs) {
+            log.warn("Worker id {} was last used {}ms ahead of this node's clock, ids fail until it catches up",
+                    lease.workerId, lead);
+        }
+
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "snowflake-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, leaseMs / 3);
+        renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+        log.info("Snowflake id generator leased worker id {} as {}", lease.workerId, owner);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+    }
+
+    @Override
+    public Long nextId(Object entity) {
+        return nextId();
+    }
+
+    public long nextId() {
+        return nextBlock(1);
+    }
+
+    /**
+     * Reserve count consecutive ids, at most MAX_BLOCK, and return the first
+     */
+    public long nextBlock(int count) {
+        if (count < 1 || count > MAX_BLOCK) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + MAX_BLOCK);
+        }
+        while (true) {
+            Lease current = lease;
+            long previous = last.get();
+            long lastMs = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong();
+            if (now >= current.deadline) {
+                throw new IllegalStateException("Lease on worker id " + current.workerId
+                        + " has expired, refusing to issue ids until it is renewed");
+            }
+            long nowMs = now - EPOCH;
+            long first;
+            if (nowMs > lastMs) {
+                first = nowMs << SEQUENCE_BITS;
+            } else if (lastMs - nowMs <= maxBackwardMs) {
+                first = previous + 1;
+            } else {
+                throw new RuntimeException("Clock moved backwards by " + (lastMs - nowMs) + "ms, refusing to issue ids");
+            }
+            // A block never spans two milliseconds, so its ids stay consecutive
+            if ((first & SEQUENCE_MASK) + count > MAX_BLOCK) {
+                first = ((first >>> SEQUENCE_BITS) + 1) << SEQUENCE_BITS;
+            }
+            // A block reserved while the worker id changed is dropped, it may overlap the new id's last holder
+            if (last.compareAndSet(previous, first + count - 1) && lease == current) {
+                return (first >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS) | current.workerBits
+                        | (first & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public int getWorkerId() {
+        return lease.workerId;
+    }
+
+    private void renew() {
+        int previous = lease.workerId;
+        try {
+            lease(previous);
+            if (lease.workerId != previous) {
+                log.error("Lease on worker id {} was lost, continuing as worker id {}", previous, lease.workerId);
+            }
+        } catch (Exception e) {
+            log.error("Failed to renew lease on worker id {}, ids stop {}ms after the last renew",
+                    previous, leaseMs * 2 / 3, e);
+        }
+    }
+
+    /**
+     * Take or renew a worker id, preferring the given one, and never issue below its last holder
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized void lease(int preferred) {
+        // Counted from before the call, Redis cannot expire the lease earlier than that plus leaseMs
+        long requested = clock.getAsLong();
+        long lastMs = (last.get() >>> SEQUENCE_BITS) + EPOCH;
+        List<Object> leased = stringRedisTemplate.execute(LEASE_SCRIPT,
+                Collections.singletonList(WORKER_LEASE_KEY),
+                owner, String.valueOf(leaseMs), String.valueOf(MAX_WORKERS),
+                String.valueOf(preferred), String.valueOf(lastMs));
+        if (leased == null || leased.size() < 2) {
+            throw new IllegalStateException("All " + MAX_WORKERS + " snowflake worker ids are leased");
+        }
+        long holderLastMs = Long.parseLong(String.valueOf(leased.get(1)));
+        if (holderLastMs > EPOCH) {
+            // Every id of that millisecond counts as used
+            last.accumulateAndGet((holderLastMs - EPOCH) << SEQUENCE_BITS | SEQUENCE_MASK, Math::max);
+        }
+        lease = new Lease(Integer.parseInt(String.valueOf(leased.get(0))), requested + leaseMs * 2 / 3);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+
+    private static final class Lease {
+
+        final int workerId;
+        final long workerBits;
+        final long deadline;
+
+        Lease(int workerId, long deadline) {
+            this.workerId = workerId;
+            this.workerBits = (long) workerId << SEQUENCE_BITS;
+            this.deadline = deadline;
+        }
+
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.manus.seckill.common;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consumer-group loop over one Redis stream, shared by the seckill and order
+ * stream consumers. Each consumer thread first re-reads the entries it left
+ * pending before a restart, then reads new entries in batches, and every
+ * claim interval takes over entries other consumers read but did not ack
+ * within the claim idle time (XAUTOCLAIM). Batches go to a handler that
+ * acknowledges them once processed; a handler that throws leaves its batch
+ * pending to be retried.
+ */
+@Slf4j
+public class StreamGroupConsumer {
+
+    /**
+     * Processes and acknowledges one batch; throwing leaves it pending
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+
+        void process(List<MapRecord<String, Object, Object>> records);
+
+    }
+
+    private static final long ERROR_BACKOFF_MS = 1000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String streamKey;
+    private final String group;
+    private final BatchHandler handler;
+
+    private int batchSize = 200;
+    private long blockMs = 2000;
+    private long claimIdleMs = 60000;
+    private long claimIntervalMs = 30000;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public StreamGroupConsumer(StringRedisTemplate stringRedisTemplate, String streamKey, String group,
+                               BatchHandler handler) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.streamKey = streamKey;
+        this.group = group;
+        this.handler = handler;
+    }
+
+    public StreamGroupConsumer batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public StreamGroupConsumer blockMs(long blockMs) {
+        this.blockMs = blockMs;
+        return this;
+    }
+
+    public StreamGroupConsumer claim(long idleMs, long intervalMs) {
+        this.claimIdleMs = idleMs;
+        this.claimIntervalMs = intervalMs;
+        return this;
+    }
+
+    /**
+     * Create the group if missing and start threads consumers named consumerPrefix-i,
+     * where an empty prefix means this host's name
+     */
+    public void start(String consumerPrefix, int threads, ThreadFactory threadFactory) {
+        createGroup();
+        String prefix = consumerPrefix.isEmpty() ? hostName() : consumerPrefix;
+
+        running = true;
+        executor = Executors.newFixedThreadPool(threads, threadFactory);
+        for (int i = 0; i < threads; i++) {
+            String consumerName = prefix + "-" + i;
+            executor.submit(() -> consume(consumerName));
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(blockMs + 5000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Virtual threads under spring.threads.virtual.enabled on Java 21, so a
+     * consumer blocked in XREADGROUP or on MySQL does not hold a platform thread
+     */
+    public static ThreadFactory threadFactory(Environment environment, String namePrefix) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        }
+        AtomicInteger index = new AtomicInteger();
+        return r -> new Thread(r, namePrefix + index.getAndIncrement());
+    }
+
+    private void consume(String consumerName) {
+        Consumer consumer = Consumer.from(group, consumerName);
+
+        // Entries this consumer read but never acked before a restart
+        drainOwnPending(consumer);
+
+        long nextClaim = System.currentTimeMillis() + claimIntervalMs;
+        while (running) {
+            try {
+                if (System.currentTimeMillis() >= nextClaim) {
+                    reclaimPending(consumerName);
+                    nextClaim = System.currentTimeMillis() + claimIntervalMs;
+                }
+
+                List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(
+                        consumer,
+                        StreamReadOptions.empty().count(batchSize).block(Duration.ofMillis(blockMs)),
+                        StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+                if (records != null && !records.isEmpty()) {
+                    handler.process(records);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Error processing {} batch, pending entries will be retried", streamKey, e);
+                sleepQuietly(ERROR_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void drainOwnPending(Consumer consumer) {
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(
+                        consumer,
+                        StreamReadOptions.empty().count(batchSize),
+                        StreamOffset.create(streamKey, ReadOffset.from("0")));
+                if (records == null || records.isEmpty()) {
+                    return;
+                }
+                handler.process(records);
+            } catch (Exception e) {
+                log.error("Error draining pending {} entries", streamKey, e);
+                sleepQuietly(ERROR_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Take over entries that other consumers read but did not ack within claimIdleMs
+     */
+    private void reclaimPending(String consumerName) {
+        String cursor = "0-0";
+        do {
+            List<Object> reply = autoClaim(consumerName, cursor);
+            if (reply == null || reply.size() < 2) {
+                return;
+            }
+            cursor = asString(reply.get(0));
+
+            List<MapRecord<String, Object, Object>> records = new ArrayList<>();
+            for (Object entry : (List<?>) reply.get(1)) {
+                MapRecord<String, Object, Object> record = toRecord(entry);
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+            if (!records.isEmpty()) {
+                log.info("Reclaimed {} pending {} entries", records.size(), streamKey);
+                handler.process(records);
+            }
+        } while (running && !"0-0".equals(cursor));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> autoClaim(String consumerName, String cursor) {
+        byte[][] args = {
+                bytes(streamKey), bytes(group), bytes(consumerName),
+                bytes(String.valueOf(claimIdleMs)), bytes(cursor),
+                bytes("COUNT"), bytes(String.valueOf(batchSize))
+        };
+        try {
+            return stringRedisTemplate.execute(
+                    (RedisCallback<List<Object>>) connection -> (List<Object>) connection.execute("XAUTOCLAIM", args));
+        } catch (RedisSystemException e) {
+            log.warn("XAUTOCLAIM failed, pending entries stay with their consumer", e);
+            return null;
+        }
+    }
+
+    private MapRecord<String, Object, Object> toRecord(Object entry) {
+        if (!(entry instanceof List<?> parts) || parts.size() < 2 || parts.get(1) == null) {
+            // Entry was trimmed from the stream after being read
+            return null;
+        }
+        List<?> fields = (List<?>) parts.get(1);
+        Map<Object, Object> value = new HashMap<>();
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            value.put(asString(fields.get(i)), asString(fields.get(i + 1)));
+        }
+        return StreamRecords.newRecord()
+                .in(streamKey)
+                .withId(RecordId.of(asString(parts.get(0))))
+                .ofMap(value);
+    }
+
+    private void createGroup() {
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(bytes(streamKey), group, ReadOffset.from("0"), true));
+            log.info("Created consumer group {} on {}", group, streamKey);
+        } catch (RedisSystemException e) {
+            String reason = e.getMostSpecificCause().getMessage();
+            if (reason == null || !reason.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "consumer";
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String asString(Object value) {
+        return value instanceof byte[] raw ? new String(raw, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+-- Take or renew a Snowflake worker id lease, shared by every node that issues ids.
+--
+-- KEYS[1] lease hash         seckill:id:workers (field = worker id,
+--                            value = leaseUntil:lastTime:owner, epoch ms)
+-- ARGV[1] owner, unique per process
+-- ARGV[2] lease, ms
+-- ARGV[3] number of worker ids
+-- ARGV[4] preferred worker id, the one currently held when renewing
+-- ARGV[5] last timestamp issued by the caller, epoch ms
+--
+-- The preferred id is renewed if the caller still holds it; otherwise the
+-- first id from there whose lease has lapsed is taken. Lease times use the
+-- Redis clock so nodes with skewed clocks agree on expiry. The last issued
+-- timestamp is kept per id, so a node taking over an id never issues below
+-- what its previous holder issued.
+--
+-- Returns {worker id, last timestamp issued under it}, or nil when every id is leased
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local owner = ARGV[1]
+local leaseUntil = now + tonumber(ARGV[2])
+local workers = tonumber(ARGV[3])
+local preferred = tonumber(ARGV[4])
+local callerLast = tonumber(ARGV[5])
+
+for i = 0, workers - 1 do
+    local id = (preferred + i) % workers
+    local value = redis.call('HGET', KEYS[1], id)
+    local expires, last, holder = 0, 0, nil
+    if value then
+        local e, l, h = string.match(value, '^(%d+):(%d+):(.*)$')
+        expires, last, holder = tonumber(e) or 0, tonumber(l) or 0, h
+    end
+    if holder == owner or expires < now then
+        if holder == owner and callerLast > last then
+            last = callerLast
+        end
+        redis.call('HSET', KEYS[1], id, leaseUntil .. ':' .. last .. ':' .. owner)
+        return {id, last}
+    end
+end
+
+return nil
@@ -0,0 +1,41 @@
+package com.manus.seckill.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SeckillResultsTest {
+
+    @Test
+    void resultSurvivesEncoding() {
+        SeckillResults.Entry entry = SeckillResults.decode(
+                SeckillResults.encode(SeckillResults.SUCCESS, 42L, "Seckill successful: order 42"));
+
+        assertEquals(SeckillResults.SUCCESS, entry.getStatus());
+        assertEquals(42L, entry.getOrderId());
+        assertEquals("Seckill successful: order 42", entry.getMessage());
+    }
+
+    @Test
+    void failureWithoutOrderDecodesToNullOrderId() {
+        SeckillResults.Entry entry = SeckillResults.decode(
+                SeckillResults.encode(SeckillResults.FAILED, null, "Seckill activity not found"));
+
+        assertEquals(SeckillResults.FAILED, entry.getStatus());
+        assertNull(entry.getOrderId());
+        assertEquals("Seckill activity not found", entry.getMessage());
+    }
+
+    @Test
+    void notificationSplitsIntoSubscriberAndResult() {
+        String encoded = SeckillResults.encode(SeckillResults.SUCCESS, 7L, "ok");
+        String notification = SeckillResults.subscriber(3L, 9L) + "|" + encoded;
+
+        assertEquals("3:9", SeckillResults.notifiedSubscriber(notification));
+        assertEquals(encoded, SeckillResults.notifiedResult(notification));
+        assertNull(SeckillResults.notifiedSubscriber("|" + encoded));
+        assertEquals("seckill:result:3:9", SeckillResults.key(3L, 9L));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.manus.seckill.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+    private static final long START = 1735689600000L;
+    private static final long LEASE_MS = 60_000;
+
+    private final AtomicLong now = new AtomicLong(START);
+
+    @Test
+    void idsStayMonotonicWhenClockStepsBack() {
+        SnowflakeIdGenerator generator = fixedWorker(5);
+
+        long previous = issue(generator, 0, 100);
+        now.addAndGet(-3_000);
+        // More than one millisecond of sequence while the clock is behind
+        previous = issue(generator, previous, 10_000);
+        now.addAndGet(3_000 + 1);
+        issue(generator, previous, 100);
+    }
+
+    @Test
+    void idsRunAheadOfSteppedBackClockOnlyUntilItCatchesUp() {
+        SnowflakeIdGenerator generator = fixedWorker(5);
+
+        generator.nextId();
+        now.addAndGet(-1_000);
+        long behind = generator.nextId();
+        now.addAndGet(2_000);
+        long caughtUp = generator.nextId();
+
+        assertEquals(START - EPOCH, timestamp(behind));
+        assertEquals(START + 1_000 - EPOCH, timestamp(caughtUp));
+    }
+
+    @Test
+    void refusesStepBackBeyondMaxBackward() {
+        SnowflakeIdGenerator generator = fixedWorker(5);
+
+        long issued = generator.nextId();
+        now.addAndGet(-5_001);
+
+        assertThrows(RuntimeException.class, generator::nextId);
+        now.addAndGet(5_001);
+        assertTrue(generator.nextId() > issued);
+    }
+
+    @Test
+    void blockIsConsecutiveWithinOneMillisecond() {
+        SnowflakeIdGenerator generator = fixedWorker(5);
+
+        issue(generator, 0, SnowflakeIdGenerator.MAX_BLOCK - 10);
+        long first = generator.nextBlock(100);
+        long next = generator.nextId();
+
+        assertEquals(0, first & (SnowflakeIdGenerator.MAX_BLOCK - 1));
+        assertEquals(first + 100, next);
+        assertEquals(5, workerId(first));
+    }
+
+    @Test
+    void leasedWorkerStartsAfterItsLastHolder() {
+        // The previous holder of worker 7 issued ids up to a second ahead of this clock
+        SnowflakeIdGenerator generator = leasedWorker(new LeaseTemplate(7, START + 1_000));
+
+        long id = generator.nextId();
+
+        assertEquals(7, workerId(id));
+        assertEquals(START + 1_000 + 1 - EPOCH, timestamp(id));
+        generator.shutdown();
+    }
+
+    @Test
+    void stopsIssuingPastLeaseDeadline() {
+        SnowflakeIdGenerator generator = leasedWorker(new LeaseTemplate(7, 0));
+
+        generator.nextId();
+        now.addAndGet(LEASE_MS * 2 / 3);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+        generator.shutdown();
+    }
+
+    private SnowflakeIdGenerator fixedWorker(int workerId) {
+        SnowflakeIdGenerator generator = generator(workerId);
+        generator.init();
+        return generator;
+    }
+
+    private SnowflakeIdGenerator leasedWorker(StringRedisTemplate template) {
+        SnowflakeIdGenerator generator = generator(-1);
+        setField(generator, "stringRedisTemplate", template);
+        generator.init();
+        return generator;
+    }
+
+    private SnowflakeIdGenerator generator(int workerId) {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator();
+        setField(generator, "configuredWorkerId", workerId);
+        setField(generator, "leaseMs", LEASE_MS);
+        setField(generator, "maxBackwardMs", 5_000L);
+        setField(generator, "clock", (LongSupplier) now::get);
+        return generator;
+    }
+
+    private static long issue(SnowflakeIdGenerator generator, long previous, int count) {
+        for (int i = 0; i < count; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "id " + id + " not above " + previous);
+            previous = id;
+        }
+        return previous;
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long workerId(long id) {
+        return id >>> 12 & 1023;
+    }
+
+    /**
+     * Answers the lease script with a fixed worker id and its last holder's millisecond
+     */
+    private static final class LeaseTemplate extends StringRedisTemplate {
+
+        private final int workerId;
+        private final long holderLastMs;
+
+        LeaseTemplate(int workerId, long holderLastMs) {
+            this.workerId = workerId;
+            this.holderLastMs = holderLastMs;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            return (T) List.of(String.valueOf(workerId), String.valueOf(holderLastMs));
+        }
+
+    }
+
+}
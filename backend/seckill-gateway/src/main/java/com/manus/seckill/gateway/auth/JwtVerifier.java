@@ -0,0 +1,126 @@
+package com.manus.seckill.gateway.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.manus.seckill.gateway.config.AuthProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies tokens issued by seckill-auth. A user repeats the same token on
+ * every call during a drop, so verified tokens are cached until they expire
+ * and only the first call pays for the HMAC check. Verification time is
+ * exported as seckill.jwt.verify, split by cache hit and outcome.
+ */
+@Slf4j
+@Component
+public class JwtVerifier {
+
+    @Autowired
+    private AuthProperties authProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.secret:seckill-system-secret-key-2024-manus-ai-generated}")
+    private String secret;
+
+    private JwtParser parser;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    private Timer cachedTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    public void init() {
+        cachedTimer = verifyTimer("cached", "valid");
+        verifiedTimer = verifyTimer("verified", "valid");
+        rejectedTimer = verifyTimer("verified", "invalid");
+        parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(authProperties.getTokenCacheSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMillis = verified.getExpiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * The verified claims, or null when the token is forged, malformed or expired
+     */
+    public VerifiedToken verify(String token) {
+        long start = System.nanoTime();
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        VerifiedToken verified = parse(token);
+        if (verified != null) {
+            verifiedTokens.put(token, verified);
+        }
+        Timer timer = verified != null ? verifiedTimer : rejectedTimer;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return verified;
+    }
+
+    private Timer verifyTimer(String source, String result) {
+        return Timer.builder("seckill.jwt.verify")
+                .description("Bearer token verification in the gateway")
+                .tag("source", source)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private VerifiedToken parse(String token) {
+        try {
+            // Rejects expired tokens as well
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Object userId = claims.get("userId");
+            if (!(userId instanceof Number)) {
+                return null;
+            }
+            return new VerifiedToken(((Number) userId).longValue(),
+                    claims.get("username", String.class),
+                    claims.getExpiration().getTime(),
+                    claims.get("scope", String.class));
+        } catch (Exception e) {
+            log.debug("Rejected JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+}
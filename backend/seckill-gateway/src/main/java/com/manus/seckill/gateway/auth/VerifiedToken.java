@@ -0,0 +1,25 @@
+package com.manus.seckill.gateway.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Claims the gateway forwards downstream, taken from a token whose signature
+ * has already been checked
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final Long userId;
+
+    private final String username;
+
+    private final long expiresAtMillis;
+
+    /**
+     * Null for a login token, "stream" for a token that may only open stream routes
+     */
+    private final String scope;
+
+}
@@ -0,0 +1,31 @@
+package com.manus.seckill.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes that require a verified JWT at the gateway
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "seckill.auth")
+public class AuthProperties {
+
+    private List<String> protectedPaths = new ArrayList<>(List.of("/seckill/**", "/order/**", "/auth/info",
+            "/auth/stream-token"));
+
+    /**
+     * Protected routes that also accept a stream token as the access_token query parameter
+     */
+    private List<String> streamPaths = new ArrayList<>(List.of("/seckill/subscribe/**"));
+
+    /**
+     * Verified tokens kept in memory, least recently used are evicted first
+     */
+    private long tokenCacheSize = 100000;
+
+}
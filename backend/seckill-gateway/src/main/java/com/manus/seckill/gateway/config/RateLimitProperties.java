@@ -0,0 +1,109 @@
+package com.manus.seckill.gateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token bucket limits for the seckill endpoints. Rebound on environment
+ * refresh, buckets pick up new values on their next request.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "seckill.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Path patterns the limiter applies to
+     */
+    private List<String> paths = new ArrayList<>(List.of("/seckill/doSeckill/**", "/seckill/path/**"));
+
+    /**
+     * Node-local tier, checked first without any I/O
+     */
+    private Tier local = new Tier(new Limit(2, 5), new Limit(1000, 2000));
+
+    /**
+     * Redis tier, shared by all gateway nodes
+     */
+    private Tier global = new Tier(new Limit(1, 3), new Limit(5000, 10000));
+
+    /**
+     * Per-activity overrides of the activity limit in both tiers, keyed by activity id
+     */
+    private Map<Long, Limit> activities = new HashMap<>();
+
+    /**
+     * Local per-user buckets are dropped wholesale beyond this many entries
+     */
+    private int maxLocalUsers = 100000;
+
+    /**
+     * Local per-activity buckets kept at most, least recently used evicted first
+     */
+    private int maxLocalActivities = 10000;
+
+    /**
+     * Local per-activity buckets unused this long are evicted
+     */
+    private long localActivityIdleSeconds = 600;
+
+    /**
+     * Let requests through when Redis is unreachable, the local tier still applies
+     */
+    private boolean failOpen = true;
+
+    public Limit globalActivityLimit(Long activityId) {
+        return activityLimit(activityId, global);
+    }
+
+    /**
+     * An override is the activity's whole budget, so each node may pass up to all of it
+     */
+    public Limit localActivityLimit(Long activityId) {
+        return activityLimit(activityId, local);
+    }
+
+    private Limit activityLimit(Long activityId, Tier tier) {
+        Limit override = activityId == null ? null : activities.get(activityId);
+        return override != null ? override : tier.getActivity();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Tier {
+
+        private Limit user;
+
+        private Limit activity;
+
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Tokens added per second
+         */
+        private double rate;
+
+        /**
+         * Bucket capacity
+         */
+        private long burst;
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.manus.seckill.gateway.filter;
+
+import com.manus.seckill.gateway.auth.JwtVerifier;
+import com.manus.seckill.gateway.auth.VerifiedToken;
+import com.manus.seckill.gateway.config.AuthProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Verifies the bearer token once at the edge and forwards the caller as
+ * X-User-Id / X-Username. Those headers are always stripped from incoming
+ * requests, so services behind the gateway can trust them.
+ * <p>
+ * On stream paths a short-lived stream token from /auth/stream-token may be
+ * passed as the access_token query parameter instead; it is removed before
+ * the request is forwarded. Stream tokens are refused anywhere else, and
+ * login tokens are never taken from the query string, where they would end
+ * up in access logs and browser history.
+ */
+@Component
+public class JwtAuthFilter implements GlobalFilter, Ordered {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USERNAME_HEADER = "X-Username";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String ACCESS_TOKEN_PARAM = "access_token";
+    private static final String STREAM_SCOPE = "stream";
+
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"code\":401,\"message\":\"Invalid or expired token\",\"data\":null}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private AuthProperties authProperties;
+
+    @Autowired
+    private JwtVerifier jwtVerifier;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        if (!matches(authProperties.getProtectedPaths(), path)) {
+            HttpHeaders headers = request.getHeaders();
+            if (!headers.containsKey(USER_ID_HEADER) && !headers.containsKey(USERNAME_HEADER)) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange.mutate().request(stripIdentity(request).build()).build());
+        }
+
+        String queryToken = request.getQueryParams().getFirst(ACCESS_TOKEN_PARAM);
+        VerifiedToken verified = verify(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION), queryToken, path);
+        if (verified == null) {
+            return reject(exchange);
+        }
+
+        ServerHttpRequest.Builder builder = stripIdentity(request)
+                .header(USER_ID_HEADER, String.valueOf(verified.getUserId()));
+        if (verified.getUsername() != null) {
+            builder.header(USERNAME_HEADER, verified.getUsername());
+        }
+        if (queryToken != null) {
+            builder.uri(UriComponentsBuilder.fromUri(request.getURI())
+                    .replaceQueryParam(ACCESS_TOKEN_PARAM)
+                    .build(true)
+                    .toUri());
+        }
+        return chain.filter(exchange.mutate().request(builder.build()).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of RateLimitFilter, which keys users on X-User-Id
+        return Ordered.HIGHEST_PRECEDENCE + 50;
+    }
+
+    private boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A login token from the Authorization header or, on stream paths without one,
+     * a stream token from the query string
+     */
+    private VerifiedToken verify(String authorization, String queryToken, String path) {
+        if (authorization == null && queryToken != null && matches(authProperties.getStreamPaths(), path)) {
+            VerifiedToken verified = jwtVerifier.verify(queryToken);
+            return verified != null && STREAM_SCOPE.equals(verified.getScope()) ? verified : null;
+        }
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        VerifiedToken verified = jwtVerifier.verify(authorization.substring(BEARER_PREFIX.length()));
+        return verified != null && verified.getScope() == null ? verified : null;
+    }
+
+    private ServerHttpRequest.Builder stripIdentity(ServerHttpRequest request) {
+        return request.mutate().headers(headers -> {
+            headers.remove(USER_ID_HEADER);
+            headers.remove(USERNAME_HEADER);
+        });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer buffer = response.bufferFactory().wrap(UNAUTHORIZED_BODY);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.manus.seckill.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manus.seckill.gateway.config.RateLimitProperties;
+import com.manus.seckill.gateway.ratelimit.LocalTokenBucket;
+import com.manus.seckill.gateway.ratelimit.RedisRateLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds flash-crowd traffic on the seckill endpoints before it is routed.
+ * A request must pass the node-local user and activity buckets first, which
+ * costs no I/O, and then the Redis buckets shared by all gateway nodes.
+ * Rejected requests get a fixed 429 body.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private RedisRateLimiter redisRateLimiter;
+
+    private static final String PATH_PREFIX = "/seckill/path/";
+    private static final String ACTIVITY_ID_PARAM = "activityId";
+    private static final String UNKNOWN_ACTIVITY = "none";
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"code\":429,\"message\":\"Too many requests, please try again later\",\"data\":null}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * Keyed on the client's activity id, so bounded against made-up ids
+     */
+    private Cache<String, LocalTokenBucket> localActivityBuckets;
+    private final Map<String, LocalTokenBucket> localUserBuckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        localActivityBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxLocalActivities())
+                .expireAfterAccess(properties.getLocalActivityIdleSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || !isLimited(exchange.getRequest().getURI().getPath())) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        Long activityId = activityId(request);
+        String activityKey = activityId != null ? activityId.toString() : UNKNOWN_ACTIVITY;
+        String userKey = userKey(request);
+
+        // Per user across activities: the activity comes from the client, a made-up id must not buy a fresh bucket
+        if (!bucket(localUserBuckets, userKey, properties.getLocal().getUser()).tryAcquire()
+                || !bucket(localActivityBuckets.asMap(), activityKey,
+                        properties.localActivityLimit(activityId)).tryAcquire()) {
+            return reject(exchange);
+        }
+
+        return redisRateLimiter.tryAcquire(userKey, activityKey, activityId)
+                .flatMap(allowed -> allowed ? chain.filter(exchange) : reject(exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    private boolean isLimited(String path) {
+        for (String pattern : properties.getPaths()) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * From /seckill/path/{activityId}, otherwise from the activityId query parameter,
+     * which the seckill service rejects unless it matches the request body
+     */
+    private Long activityId(ServerHttpRequest request) {
+        String path = request.getURI().getPath();
+        String value = path.startsWith(PATH_PREFIX)
+                ? path.substring(PATH_PREFIX.length())
+                : request.getQueryParams().getFirst(ACTIVITY_ID_PARAM);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Set by JwtAuthFilter for every limited path; the address is only a fallback
+     * for limited paths configured outside the protected ones
+     */
+    private String userKey(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst(JwtAuthFilter.USER_ID_HEADER);
+        if (userId != null) {
+            return userId;
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "anonymous";
+    }
+
+    private LocalTokenBucket bucket(Map<String, LocalTokenBucket> buckets, String key, RateLimitProperties.Limit limit) {
+        LocalTokenBucket bucket = buckets.get(key);
+        if (bucket != null && bucket.matches(limit.getRate(), limit.getBurst())) {
+            return bucket;
+        }
+        if (buckets == localUserBuckets && buckets.size() >= properties.getMaxLocalUsers()) {
+            // Cheap bound: the Redis tier still enforces per-user limits while these refill
+            buckets.clear();
+        }
+        // Built on first use and again whenever the configured limit changes
+        return buckets.compute(key, (k, existing) ->
+                existing != null && existing.matches(limit.getRate(), limit.getBurst())
+                        ? existing
+                        : new LocalTokenBucket(limit.getRate(), limit.getBurst()));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        DataBuffer buffer = response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY);
+        return response.writeWith(Mono.just(buffer));
+    }
+
+}
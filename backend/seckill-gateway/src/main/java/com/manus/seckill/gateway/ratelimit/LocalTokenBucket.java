@@ -0,0 +1,44 @@
+package com.manus.seckill.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in GCRA form: instead of a token count it keeps the
+ * theoretical arrival time of the next request and admits a request while
+ * that time is no more than one burst ahead of now.
+ */
+public class LocalTokenBucket {
+
+    private final double rate;
+    private final long burst;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public LocalTokenBucket(double rate, long burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.intervalNanos = (long) (1_000_000_000L / rate);
+        this.toleranceNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean matches(double rate, long burst) {
+        return this.rate == rate && this.burst == burst;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.manus.seckill.gateway.ratelimit;
+
+import com.manus.seckill.gateway.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distributed tier: user and activity buckets shared by every gateway node,
+ * both checked in one script call.
+ */
+@Slf4j
+@Component
+public class RedisRateLimiter {
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    private static final String USER_BUCKET_PREFIX = "ratelimit:user:";
+    private static final String ACTIVITY_BUCKET_PREFIX = "ratelimit:activity:";
+
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>();
+
+    private volatile long lastWarnMillis;
+
+    static {
+        TOKEN_BUCKET_SCRIPT.setLocation(new ClassPathResource("lua/token_bucket.lua"));
+        TOKEN_BUCKET_SCRIPT.setResultType(Long.class);
+    }
+
+    public Mono<Boolean> tryAcquire(String userKey, String activityKey, Long activityId) {
+        RateLimitProperties.Limit user = properties.getGlobal().getUser();
+        RateLimitProperties.Limit activity = properties.globalActivityLimit(activityId);
+
+        List<String> keys = Arrays.asList(USER_BUCKET_PREFIX + userKey,
+                ACTIVITY_BUCKET_PREFIX + activityKey);
+        List<String> args = Arrays.asList(
+                String.valueOf(user.getRate()), String.valueOf(user.getBurst()),
+                String.valueOf(activity.getRate()), String.valueOf(activity.getBurst()));
+
+        return reactiveStringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, args)
+                .next()
+                .map(code -> code == 1L)
+                .onErrorResume(e -> {
+                    warnUnavailable(e);
+                    return Mono.just(properties.isFailOpen());
+                });
+    }
+
+    private void warnUnavailable(Throwable e) {
+        // At most one line per second, an outage during a drop would otherwise flood the log
+        long now = System.currentTimeMillis();
+        if (now - lastWarnMillis >= 1000) {
+            lastWarnMillis = now;
+            log.warn("Redis rate limiter unavailable, failOpen={}: {}", properties.isFailOpen(), e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+-- Two token buckets checked together: a request takes one token from each
+-- or from neither.
+-- KEYS[1] user bucket, KEYS[2] activity bucket
+-- ARGV[1] user rate/s, ARGV[2] user burst, ARGV[3] activity rate/s, ARGV[4] activity burst
+-- Returns 1 allowed, 0 limited by user, -1 limited by activity
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) + tonumber(time[2]) / 1000000
+
+local function refill(key, rate, burst)
+    local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+    local tokens = tonumber(bucket[1])
+    local ts = tonumber(bucket[2])
+    if tokens == nil then
+        return burst
+    end
+    return math.min(burst, tokens + math.max(0, now - ts) * rate)
+end
+
+local function save(key, tokens, rate, burst)
+    redis.call('HSET', key, 'tokens', tokens, 'ts', now)
+    -- Idle buckets refill completely after burst / rate, no need to keep them
+    redis.call('PEXPIRE', key, math.ceil(burst / rate * 1000) + 1000)
+end
+
+local userRate, userBurst = tonumber(ARGV[1]), tonumber(ARGV[2])
+local activityRate, activityBurst = tonumber(ARGV[3]), tonumber(ARGV[4])
+
+local userTokens = refill(KEYS[1], userRate, userBurst)
+if userTokens < 1 then
+    return 0
+end
+local activityTokens = refill(KEYS[2], activityRate, activityBurst)
+if activityTokens < 1 then
+    return -1
+end
+
+save(KEYS[1], userTokens - 1, userRate, userBurst)
+save(KEYS[2], activityTokens - 1, activityRate, activityBurst)
+return 1
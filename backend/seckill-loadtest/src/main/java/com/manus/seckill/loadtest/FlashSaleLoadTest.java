@@ -0,0 +1,182 @@
+package com.manus.seckill.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.manus.seckill.loadtest.StageStats.Outcome;
+import com.manus.seckill.loadtest.StageStats.Stage;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a flash sale end to end: every simulated user fetches a path,
+ * calls doSeckill and polls for the result, each on its own virtual thread.
+ * <p>
+ * Users arrive on a fixed schedule (open loop) no matter how slowly the
+ * system answers, and every latency is measured from the moment the request
+ * was scheduled to go out rather than when it actually did. A stalled server
+ * therefore shows up as queueing delay in the tail instead of silently
+ * throttling the generator.
+ * <p>
+ * With --concurrency=N the generator instead keeps N users in flight, each
+ * starting the next user as soon as its previous one finishes. This holds
+ * the server at a fixed number of open connections, e.g. to compare its
+ * platform and virtual thread modes at 10k connections; latencies are then
+ * measured from when each user actually started.
+ */
+public class FlashSaleLoadTest {
+
+    private final LoadTestConfig config;
+    private final SeckillClient client;
+    private final StageStats stats = new StageStats();
+
+    public FlashSaleLoadTest(LoadTestConfig config) {
+        this.config = config;
+        this.client = new SeckillClient(config);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        PrintStream out = System.out;
+
+        try (InvariantChecker checker = new InvariantChecker(config)) {
+            Map<Long, Integer> stock = checker.configuredStock();
+            if (config.reset) {
+                checker.reset(stock);
+            }
+            if (config.concurrency > 0) {
+                out.printf("Running %d users, %d at a time, against %s, activities %s%n",
+                        config.users, config.concurrency, config.baseUrl, stock);
+            } else {
+                out.printf("Running %d users at %d/s against %s, activities %s%n",
+                        config.users, config.arrivalRate, config.baseUrl, stock);
+            }
+
+            FlashSaleLoadTest test = new FlashSaleLoadTest(config);
+            long elapsed = test.run();
+            test.stats.print(out, elapsed);
+
+            checker.awaitDrain(stock, out);
+            boolean ok = checker.check(stock, out);
+            System.exit(ok ? 0 : 1);
+        }
+    }
+
+    /**
+     * Run all users and return the wall time in nanos
+     */
+    public long run() throws InterruptedException {
+        if (config.concurrency > 0) {
+            return runClosedLoop();
+        }
+        long intervalNanos = 1_000_000_000L / config.arrivalRate;
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.users; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long userId = config.firstUserId + i;
+                long activityId = config.activityIds.get(i % config.activityIds.size());
+                executor.execute(() -> buy(userId, activityId, intendedStart));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long runClosedLoop() {
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int slot = 0; slot < config.concurrency; slot++) {
+                executor.execute(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < config.users) {
+                        long activityId = config.activityIds.get(i % config.activityIds.size());
+                        buy(config.firstUserId + i, activityId, System.nanoTime());
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void buy(long userId, long activityId, long intendedStart) {
+        try {
+            String token = client.mintToken(userId);
+
+            stats.countRequest();
+            JsonNode pathResponse = client.getPath(activityId, userId, token);
+            long pathDone = System.nanoTime();
+            stats.record(Stage.PATH, pathDone - intendedStart);
+            if (pathResponse.path("code").asInt() != 200) {
+                stats.count(Outcome.ERROR);
+                return;
+            }
+            String path = pathResponse.path("data").asText();
+
+            stats.countRequest();
+            JsonNode seckillResponse = client.doSeckill(path, activityId, userId, token);
+            long seckillDone = System.nanoTime();
+            stats.record(Stage.DO_SECKILL, seckillDone - pathDone);
+            if (seckillResponse.path("code").asInt() != 200) {
+                stats.count(Outcome.ERROR);
+                return;
+            }
+
+            JsonNode result = seckillResponse.path("data");
+            int polls = 0;
+            while (result.path("status").asInt() == 0 && polls < config.maxPolls) {
+                Thread.sleep(config.pollInterval.toMillis());
+                polls++;
+                long pollStart = System.nanoTime();
+                stats.countRequest();
+                JsonNode pollResponse = client.getResult(activityId, userId, token);
+                stats.record(Stage.RESULT_POLL, System.nanoTime() - pollStart);
+                if (pollResponse.path("code").asInt() != 200) {
+                    stats.count(Outcome.ERROR);
+                    return;
+                }
+                result = pollResponse.path("data");
+            }
+
+            long done = System.nanoTime();
+            if (polls > 0) {
+                stats.record(Stage.TIME_TO_RESULT, done - seckillDone);
+            }
+            stats.record(Stage.END_TO_END, done - intendedStart);
+            stats.count(classify(result));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.count(Outcome.ERROR);
+        } catch (Exception e) {
+            stats.count(Outcome.ERROR);
+        }
+    }
+
+    private static Outcome classify(JsonNode result) {
+        int status = result.path("status").asInt();
+        if (status == 1) {
+            return Outcome.SUCCESS;
+        }
+        if (status == 0) {
+            return Outcome.TIMED_OUT;
+        }
+        String message = result.path("message").asText();
+        if (message.contains("already participated")) {
+            return Outcome.DUPLICATE;
+        }
+        if (message.contains("ended")) {
+            return Outcome.SOLD_OUT;
+        }
+        return Outcome.REJECTED;
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.manus.seckill.loadtest;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeds the activities before a run and checks afterwards that the sale
+ * neither oversold nor lost orders: for every activity the orders in MySQL
+ * plus the stock left in Redis must add up to the configured stock, and no
+ * user may hold two orders.
+ * <p>
+ * With seckill.stock.shard.enabled the nodes keep claimed units in memory,
+ * so run the check after they have shut down and returned them.
+ */
+public class InvariantChecker implements AutoCloseable {
+
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String SOLD_OUT_CHANNEL = "seckill:soldout";
+
+    private final LoadTestConfig config;
+    private final Connection connection;
+    private final RedisClient redisClient;
+    private final StatefulRedisConnection<String, String> redisConnection;
+    private final RedisCommands<String, String> redis;
+
+    public InvariantChecker(LoadTestConfig config) throws SQLException {
+        this.config = config;
+        this.connection = DriverManager.getConnection(config.jdbcUrl, config.jdbcUser, config.jdbcPassword);
+        this.redisClient = RedisClient.create(config.redisUri);
+        this.redisConnection = redisClient.connect();
+        this.redis = redisConnection.sync();
+    }
+
+    /**
+     * Configured seckill_stock per activity
+     */
+    public Map<Long, Integer> configuredStock() throws SQLException {
+        Map<Long, Integer> stock = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, seckill_stock FROM t_seckill_activity WHERE id = ?")) {
+            for (Long activityId : config.activityIds) {
+                statement.setLong(1, activityId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalStateException("Seckill activity " + activityId + " does not exist");
+                    }
+                    stock.put(activityId, rs.getInt("seckill_stock"));
+                }
+            }
+        }
+        return stock;
+    }
+
+    /**
+     * Drop earlier orders and participation state and load fresh stock
+     */
+    public void reset(Map<Long, Integer> stock) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM t_seckill_order WHERE activity_id = ?")) {
+            for (Long activityId : stock.keySet()) {
+                statement.setLong(1, activityId);
+                statement.executeUpdate();
+            }
+        }
+
+        for (Map.Entry<Long, Integer> entry : stock.entrySet()) {
+            Long activityId = entry.getKey();
+            deleteMatching("seckill:users:" + activityId);
+            deleteMatching("seckill:users:bloom:" + activityId);
+            deleteMatching("seckill:result:" + activityId + ":*");
+            redis.set(SECKILL_STOCK_PREFIX + activityId, String.valueOf(entry.getValue()));
+            // Clear node-local sold-out flags left by an earlier run
+            redis.publish(SOLD_OUT_CHANNEL, "available:" + activityId);
+        }
+    }
+
+    /**
+     * Wait until every unit taken from Redis has been materialized as an order
+     */
+    public void awaitDrain(Map<Long, Integer> stock, PrintStream out) throws SQLException, InterruptedException {
+        long deadline = System.nanoTime() + config.drainTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            long pending = 0;
+            for (Map.Entry<Long, Integer> entry : stock.entrySet()) {
+                long taken = entry.getValue() - redisStock(entry.getKey());
+                pending += Math.max(0, taken - orderCount(entry.getKey()));
+            }
+            if (pending == 0) {
+                return;
+            }
+            out.printf("Waiting for %d orders to be written...%n", pending);
+            Thread.sleep(1000);
+        }
+    }
+
+    /**
+     * Print one line per activity and return whether all invariants hold
+     */
+    public boolean check(Map<Long, Integer> stock, PrintStream out) throws SQLException {
+        boolean ok = true;
+        out.printf("%n%-10s %10s %10s %10s %10s  %s%n", "activity", "stock", "orders", "redis", "dup users", "status");
+        for (Map.Entry<Long, Integer> entry : stock.entrySet()) {
+            Long activityId = entry.getKey();
+            int configured = entry.getValue();
+            long orders = orderCount(activityId);
+            long remaining = redisStock(activityId);
+            long duplicates = duplicateUsers(activityId);
+
+            List<String> violations = new ArrayList<>();
+            if (orders > configured) {
+                violations.add("oversold");
+            }
+            if (remaining < 0) {
+                violations.add("negative redis stock");
+            }
+            if (duplicates > 0) {
+                violations.add("duplicate purchase");
+            }
+            if (orders + remaining != configured) {
+                violations.add("orders + redis != stock");
+            }
+
+            ok &= violations.isEmpty();
+            out.printf("%-10d %10d %10d %10d %10d  %s%n", activityId, configured, orders, remaining, duplicates,
+                    violations.isEmpty() ? "OK" : String.join(", ", violations));
+        }
+        return ok;
+    }
+
+    private long redisStock(Long activityId) {
+        String value = redis.get(SECKILL_STOCK_PREFIX + activityId);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private long orderCount(Long activityId) throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM t_seckill_order WHERE activity_id = ?", activityId);
+    }
+
+    private long duplicateUsers(Long activityId) throws SQLException {
+        // uk_user_activity should make this impossible, checked in case the key gets dropped
+        return queryLong("SELECT COUNT(*) FROM (SELECT user_id FROM t_seckill_order WHERE activity_id = ? "
+                + "GROUP BY user_id HAVING COUNT(*) > 1) d", activityId);
+    }
+
+    private long queryLong(String sql, Long activityId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, activityId);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private void deleteMatching(String pattern) {
+        ScanArgs args = ScanArgs.Builder.matches(pattern).limit(1000);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            KeyScanCursor<String> page = redis.scan(cursor, args);
+            if (!page.getKeys().isEmpty()) {
+                redis.unlink(page.getKeys().toArray(new String[0]));
+            }
+            cursor = page;
+        } while (!cursor.isFinished());
+    }
+
+    @Override
+    public void close() throws SQLException {
+        redisConnection.close();
+        redisClient.shutdown();
+        connection.close();
+    }
+
+}
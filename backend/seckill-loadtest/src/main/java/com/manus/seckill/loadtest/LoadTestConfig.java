@@ -0,0 +1,108 @@
+package com.manus.seckill.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, given as --name=value
+ */
+public class LoadTestConfig {
+
+    /**
+     * Gateway (http://localhost:8080) or a seckill-seckill node (http://localhost:8083)
+     */
+    String baseUrl = "http://localhost:8080";
+
+    /**
+     * Send X-User-Id ourselves, needed when bypassing the gateway
+     */
+    boolean direct = false;
+
+    int users = 200_000;
+
+    long firstUserId = 1_000_000L;
+
+    /**
+     * Open-loop arrival rate, new users per second
+     */
+    int arrivalRate = 20_000;
+
+    /**
+     * When above 0, keep this many users in flight instead of arriving at a fixed rate
+     */
+    int concurrency = 0;
+
+    List<Long> activityIds = List.of(1L, 3L, 5L);
+
+    Duration pollInterval = Duration.ofMillis(500);
+
+    int maxPolls = 60;
+
+    Duration requestTimeout = Duration.ofSeconds(10);
+
+    String jwtSecret = "seckill-system-secret-key-2024-manus-ai-generated";
+
+    String jdbcUrl = "jdbc:mysql://localhost:3306/seckill_db?useSSL=false&serverTimezone=Asia/Shanghai";
+
+    String jdbcUser = "root";
+
+    String jdbcPassword = "root123456";
+
+    String redisUri = "redis://redis123456@localhost:6379/0";
+
+    /**
+     * Clear previous orders and load stock into Redis before the run
+     */
+    boolean reset = true;
+
+    /**
+     * How long to wait for the order stream to drain before checking invariants
+     */
+    Duration drainTimeout = Duration.ofSeconds(60);
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestConfig config = new LoadTestConfig();
+        config.baseUrl = options.getOrDefault("base-url", config.baseUrl);
+        config.direct = Boolean.parseBoolean(options.getOrDefault("direct", String.valueOf(config.direct)));
+        config.users = Integer.parseInt(options.getOrDefault("users", String.valueOf(config.users)));
+        config.firstUserId = Long.parseLong(options.getOrDefault("first-user-id", String.valueOf(config.firstUserId)));
+        config.arrivalRate = Integer.parseInt(options.getOrDefault("rate", String.valueOf(config.arrivalRate)));
+        config.concurrency = Integer.parseInt(options.getOrDefault("concurrency", String.valueOf(config.concurrency)));
+        if (options.containsKey("activities")) {
+            config.activityIds = Arrays.stream(options.get("activities").split(","))
+                    .map(String::trim)
+                    .map(Long::valueOf)
+                    .toList();
+        }
+        if (options.containsKey("poll-interval-ms")) {
+            config.pollInterval = Duration.ofMillis(Long.parseLong(options.get("poll-interval-ms")));
+        }
+        config.maxPolls = Integer.parseInt(options.getOrDefault("max-polls", String.valueOf(config.maxPolls)));
+        if (options.containsKey("timeout-ms")) {
+            config.requestTimeout = Duration.ofMillis(Long.parseLong(options.get("timeout-ms")));
+        }
+        config.jwtSecret = options.getOrDefault("jwt-secret", config.jwtSecret);
+        config.jdbcUrl = options.getOrDefault("jdbc-url", config.jdbcUrl);
+        config.jdbcUser = options.getOrDefault("jdbc-user", config.jdbcUser);
+        config.jdbcPassword = options.getOrDefault("jdbc-password", config.jdbcPassword);
+        config.redisUri = options.getOrDefault("redis-uri", config.redisUri);
+        config.reset = Boolean.parseBoolean(options.getOrDefault("reset", String.valueOf(config.reset)));
+        if (options.containsKey("drain-timeout-s")) {
+            config.drainTimeout = Duration.ofSeconds(Long.parseLong(options.get("drain-timeout-s")));
+        }
+        return config;
+    }
+
+}
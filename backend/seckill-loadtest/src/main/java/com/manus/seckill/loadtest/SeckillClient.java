@@ -0,0 +1,90 @@
+package com.manus.seckill.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.Executors;
+
+/**
+ * Thin blocking client for the three seckill endpoints. Meant to be called
+ * from virtual threads, one per simulated user.
+ */
+public class SeckillClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LoadTestConfig config;
+    private final HttpClient httpClient;
+    private final SecretKey signingKey;
+
+    public SeckillClient(LoadTestConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.requestTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.signingKey = Keys.hmacShaKeyFor(config.jwtSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Token with the same claims JwtUtil issues on login
+     */
+    public String mintToken(long userId) {
+        Date now = new Date();
+        return Jwts.builder()
+                .claim("userId", userId)
+                .claim("username", "loadtest" + userId)
+                .subject(String.valueOf(userId))
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    public JsonNode getPath(long activityId, long userId, String token) throws IOException, InterruptedException {
+        return send(request("/seckill/path/" + activityId, userId, token).GET().build());
+    }
+
+    public JsonNode doSeckill(String path, long activityId, long userId, String token)
+            throws IOException, InterruptedException {
+        String body = "{\"activityId\":" + activityId + "}";
+        return send(request("/seckill/doSeckill/" + path + "?activityId=" + activityId, userId, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    public JsonNode getResult(long activityId, long userId, String token) throws IOException, InterruptedException {
+        return send(request("/seckill/result/" + activityId, userId, token).GET().build());
+    }
+
+    private HttpRequest.Builder request(String path, long userId, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(config.baseUrl + path))
+                .timeout(config.requestTimeout)
+                .header("Authorization", "Bearer " + token);
+        if (config.direct) {
+            builder.header("X-User-Id", String.valueOf(userId));
+        }
+        return builder;
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + request.uri().getPath());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+}
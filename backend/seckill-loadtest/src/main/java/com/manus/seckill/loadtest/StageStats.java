@@ -0,0 +1,85 @@
+package com.manus.seckill.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per stage and outcome counters for one run
+ */
+public class StageStats {
+
+    public enum Stage {
+        PATH, DO_SECKILL, RESULT_POLL, TIME_TO_RESULT, END_TO_END
+    }
+
+    public enum Outcome {
+        SUCCESS, SOLD_OUT, DUPLICATE, REJECTED, TIMED_OUT, ERROR
+    }
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<Stage, Histogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    private final LongAdder requests = new LongAdder();
+
+    public StageStats() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).recordValue(Math.min(nanos, MAX_TRACKABLE_NANOS));
+    }
+
+    public void count(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    public void countRequest() {
+        requests.increment();
+    }
+
+    public long outcome(Outcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+
+    public void print(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%nRun time %.1fs, %d HTTP requests (%.0f req/s)%n",
+                seconds, requests.sum(), requests.sum() / seconds);
+
+        out.printf("%n%-15s %10s %10s %10s %10s %10s %10s%n",
+                "stage (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+        for (Stage stage : Stage.values()) {
+            Histogram histogram = histograms.get(stage);
+            out.printf("%-15s %10d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    stage.name().toLowerCase(),
+                    histogram.getTotalCount(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        out.println();
+        for (Outcome outcome : Outcome.values()) {
+            out.printf("%-10s %d%n", outcome.name().toLowerCase(), outcomes.get(outcome).sum());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+}
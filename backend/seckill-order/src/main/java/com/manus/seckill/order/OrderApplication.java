@@ -1,11 +1,16 @@
 package com.manus.seckill.order;
 
+import com.manus.seckill.common.SnowflakeIdGenerator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@Import(SnowflakeIdGenerator.class)
+@EnableScheduling
 public class OrderApplication {
 
     public static void main(String[] args) {
@@ -6,6 +6,10 @@ import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**
+ * Drains cancellation messages sent with a per-message TTL before order
+ * timeouts moved to OrderTimeoutScheduler; nothing publishes to this queue now.
+ */
 @Slf4j
 @Component
 public class OrderCancellationListener {
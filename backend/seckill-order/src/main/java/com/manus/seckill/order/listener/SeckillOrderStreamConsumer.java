@@ -0,0 +1,315 @@
+package com.manus.seckill.order.listener;
+
+import com.manus.seckill.common.SeckillResults;
+import com.manus.seckill.common.StreamGroupConsumer;
+import com.manus.seckill.order.entity.Order;
+import com.manus.seckill.order.mapper.OrderMapper;
+import com.manus.seckill.order.service.OrderService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer-group reader for seckill:order:stream, fed by the seckill
+ * service once a t_seckill_order row has committed. Each batch becomes
+ * payable t_order rows with one insert: product and price come from the
+ * activity metadata the pre-warm job keeps in seckill:meta:{activityId},
+ * read once per activity in the batch, and only activities missing there
+ * are looked up in MySQL. Timeouts are scheduled in one ZADD, and the order
+ * id is written to the result key the client polls and pushed to the seckill
+ * nodes holding its SSE connection, before the batch is acknowledged.
+ * <p>
+ * An entry that can never become an order, because its activity is gone or
+ * its data is unreadable, is rejected rather than dropped: the buyer's
+ * t_seckill_order row is deleted, the stock unit returned and a failure
+ * result published, so the client stops waiting.
+ */
+@Slf4j
+@Component
+public class SeckillOrderStreamConsumer {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.stream.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.stream.group:order-create-group}")
+    private String group;
+
+    @Value("${order.stream.consumer:}")
+    private String consumerPrefix;
+
+    @Value("${order.stream.threads:1}")
+    private int threads;
+
+    @Value("${order.stream.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.stream.block-ms:2000}")
+    private long blockMs;
+
+    @Value("${order.stream.claim-idle-ms:60000}")
+    private long claimIdleMs;
+
+    @Value("${order.stream.claim-interval-ms:30000}")
+    private long claimIntervalMs;
+
+    /**
+     * Lifetime of the seckill:result keys the seckill service serves
+     */
+    @Value("${order.stream.result-ttl-seconds:86400}")
+    private long resultTtlSeconds;
+
+    private static final String ORDER_STREAM_KEY = "seckill:order:stream";
+    private static final String SECKILL_META_PREFIX = "seckill:meta:";
+    private static final String SUCCESS_MESSAGE = "Seckill successful";
+    private static final String REJECTED_MESSAGE = "Seckill order could not be created";
+
+    private StreamGroupConsumer streamConsumer;
+
+    private Timer streamLag;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        streamLag = Timer.builder("seckill.order.stream.lag")
+                .description("Age of seckill:order:stream entries when their orders are created")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("seckill.order.stream.batch.size")
+                .description("Entries per seckill:order:stream batch")
+                .register(meterRegistry);
+        streamConsumer = new StreamGroupConsumer(stringRedisTemplate, ORDER_STREAM_KEY, group, this::processBatch)
+                .batchSize(batchSize)
+                .blockMs(blockMs)
+                .claim(claimIdleMs, claimIntervalMs);
+        streamConsumer.start(consumerPrefix, threads,
+                StreamGroupConsumer.threadFactory(environment, "order-stream-consumer-"));
+        log.info("Seckill order stream consumer initialized: group={}, consumers={}, batchSize={}",
+                group, threads, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (streamConsumer != null) {
+            streamConsumer.stop();
+        }
+    }
+
+    /**
+     * Create the batch's orders, reject the ones that cannot be created,
+     * publish all results, then acknowledge it
+     */
+    void processBatch(List<MapRecord<String, Object, Object>> records) {
+        List<Order> orders = new ArrayList<>(records.size());
+        List<Order> rejected = new ArrayList<>();
+        List<RecordId> ackIds = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            ackIds.add(record.getId());
+            Order order = parse(record);
+            if (order != null) {
+                orders.add(order);
+                continue;
+            }
+            Order buyer = parseBuyer(record);
+            if (buyer != null) {
+                rejected.add(buyer);
+            } else {
+                log.error("Seckill order stream entry {} names no buyer, it cannot be rejected", record.getId());
+            }
+        }
+
+        Map<Long, Order> activities = loadActivities(orders);
+        List<Order> priced = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            Order activity = activities.get(order.getSeckillActivityId());
+            if (activity == null) {
+                // The activity was deleted; retrying cannot help, so the order is rejected
+                log.error("Seckill activity {} not found, order {} of user {} not created",
+                        order.getSeckillActivityId(), order.getId(), order.getUserId());
+                rejected.add(order);
+                continue;
+            }
+            order.setProductId(activity.getProductId());
+            order.setSeckillPrice(activity.getSeckillPrice());
+            priced.add(order);
+        }
+
+        List<Order> pending = orderService.createSeckillOrders(priced);
+        for (Order order : rejected) {
+            orderService.rejectSeckillOrder(order);
+        }
+        publishResults(pending, rejected);
+
+        stringRedisTemplate.opsForStream().acknowledge(ORDER_STREAM_KEY, group,
+                ackIds.toArray(new RecordId[0]));
+        batchSizes.record(records.size());
+        streamLag.record(Math.max(0, System.currentTimeMillis() - records.get(0).getId().getTimestamp()),
+                TimeUnit.MILLISECONDS);
+        log.debug("Seckill order batch created: records={}, orders={}, rejected={}",
+                records.size(), pending.size(), rejected.size());
+    }
+
+    /**
+     * Activity id to an order holding its productId and seckillPrice: one pipelined
+     * HMGET per distinct activity, and one query for any the pre-warm job has not cached
+     */
+    private Map<Long, Order> loadActivities(List<Order> orders) {
+        Set<Long> activityIds = new LinkedHashSet<>();
+        for (Order order : orders) {
+            activityIds.add(order.getSeckillActivityId());
+        }
+        Map<Long, Order> activities = new HashMap<>();
+        if (activityIds.isEmpty()) {
+            return activities;
+        }
+
+        List<Long> ids = new ArrayList<>(activityIds);
+        List<Object> metas = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (Long id : ids) {
+                conn.hMGet(SECKILL_META_PREFIX + id, "productId", "seckillPrice");
+            }
+            return null;
+        });
+
+        Set<Long> missing = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            List<?> fields = (List<?>) metas.get(i);
+            if (fields == null || fields.size() < 2 || fields.get(0) == null || fields.get(1) == null) {
+                missing.add(ids.get(i));
+                continue;
+            }
+            Order activity = new Order();
+            activity.setSeckillActivityId(ids.get(i));
+            activity.setProductId(Long.parseLong(fields.get(0).toString()));
+            activity.setSeckillPrice(new BigDecimal(fields.get(1).toString()));
+            activities.put(activity.getSeckillActivityId(), activity);
+        }
+
+        if (!missing.isEmpty()) {
+            log.warn("Seckill metadata not cached for activities {}, reading MySQL", missing);
+            for (Order activity : orderMapper.selectActivityPrices(missing)) {
+                activities.put(activity.getSeckillActivityId(), activity);
+            }
+        }
+        return activities;
+    }
+
+    /**
+     * Store and announce each order's result in the layout the seckill service reads
+     */
+    private void publishResults(List<Order> orders, List<Order> rejected) {
+        if (orders.isEmpty() && rejected.isEmpty()) {
+            return;
+        }
+        // A failure leaves the batch unacked; redelivery finds the orders created and publishes again
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (Order order : orders) {
+                SeckillResults.write(conn, order.getSeckillActivityId(), order.getUserId(),
+                        SeckillResults.encode(SeckillResults.SUCCESS, order.getId(), SUCCESS_MESSAGE),
+                        resultTtlSeconds);
+            }
+            for (Order order : rejected) {
+                SeckillResults.write(conn, order.getSeckillActivityId(), order.getUserId(),
+                        SeckillResults.encode(SeckillResults.FAILED, null, REJECTED_MESSAGE), resultTtlSeconds);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * data is seckillOrderId:userId:activityId; the seckill order id becomes the order id
+     */
+    public static Order parse(MapRecord<String, Object, Object> record) {
+        Object data = record.getValue().get("data");
+        if (data == null) {
+            log.warn("Empty message data: {}", record.getId());
+            return null;
+        }
+
+        String[] parts = data.toString().split(":");
+        if (parts.length != 3) {
+            log.warn("Invalid message format: {}", data);
+            return null;
+        }
+
+        try {
+            Order order = new Order();
+            order.setId(Long.parseLong(parts[0]));
+            order.setUserId(Long.parseLong(parts[1]));
+            order.setSeckillActivityId(Long.parseLong(parts[2]));
+            return order;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid message format: {}", data);
+            return null;
+        }
+    }
+
+    /**
+     * Buyer and activity of an entry {@link #parse} rejected because its seckill
+     * order id is unreadable. The order SN is derived from the entry id, so the
+     * stock is returned once however often the entry is delivered. Null when the
+     * buyer cannot be read either.
+     */
+    public static Order parseBuyer(MapRecord<String, Object, Object> record) {
+        Object data = record.getValue().get("data");
+        if (data == null) {
+            return null;
+        }
+
+        String[] parts = data.toString().split(":");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        try {
+            Order order = new Order();
+            order.setUserId(Long.parseLong(parts[1]));
+            order.setSeckillActivityId(Long.parseLong(parts[2]));
+            order.setOrderSn("STREAM" + record.getId().getValue());
+            return order;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+}
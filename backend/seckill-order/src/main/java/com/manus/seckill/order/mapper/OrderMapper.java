@@ -2,8 +2,16 @@ package com.manus.seckill.order.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.manus.seckill.order.entity.Order;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface OrderMapper extends BaseMapper<Order> {
@@ -11,4 +19,54 @@ public interface OrderMapper extends BaseMapper<Order> {
     @Select("SELECT * FROM t_order WHERE order_sn = #{orderSn}")
     Order selectByOrderSn(String orderSn);
 
+    /**
+     * Multi-row insert, rows whose id or order SN already exist are skipped
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO t_order (id, order_sn, user_id, product_id, seckill_activity_id, seckill_price, " +
+            "status, create_time) VALUES " +
+            "<foreach collection='orders' item='o' separator=','>" +
+            "(#{o.id}, #{o.orderSn}, #{o.userId}, #{o.productId}, #{o.seckillActivityId}, #{o.seckillPrice}, " +
+            "#{o.status}, #{o.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("orders") List<Order> orders);
+
+    /**
+     * Product and price of seckill activities, returned as orders with only
+     * seckillActivityId, productId and seckillPrice set
+     */
+    @Select("<script>" +
+            "SELECT id AS seckill_activity_id, product_id, seckill_price FROM t_seckill_activity WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Order> selectActivityPrices(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Pending to paid; 0 rows when the order was cancelled meanwhile
+     */
+    @Update("UPDATE t_order SET status = 1, pay_time = #{payTime} WHERE order_sn = #{orderSn} AND status = 0")
+    int payIfPending(@Param("orderSn") String orderSn, @Param("payTime") LocalDateTime payTime);
+
+    /**
+     * Pending to cancelled; 0 rows when the order was paid meanwhile
+     */
+    @Update("UPDATE t_order SET status = 2 WHERE order_sn = #{orderSn} AND status = 0")
+    int cancelIfPending(String orderSn);
+
+    /**
+     * Frees uk_user_activity so the buyer may take part again. By id, the seckill
+     * order id a seckill order was created with: a later purchase by the same
+     * buyer has its own row, which a repeated cancellation must not delete
+     */
+    @Delete("DELETE FROM t_seckill_order WHERE id = #{id}")
+    int deleteSeckillOrder(Long id);
+
+    /**
+     * By buyer and activity, for a rejected stream entry whose seckill order id is
+     * unreadable; uk_user_activity allows one row, and it has no t_order yet
+     */
+    @Delete("DELETE FROM t_seckill_order WHERE user_id = #{userId} AND activity_id = #{activityId}")
+    int deleteSeckillOrderOf(@Param("userId") Long userId, @Param("activityId") Long activityId);
+
 }
@@ -3,6 +3,8 @@ package com.manus.seckill.order.service;
 import com.manus.seckill.order.dto.OrderDTO;
 import com.manus.seckill.order.entity.Order;
 
+import java.util.List;
+
 public interface OrderService {
 
     /**
@@ -10,6 +12,23 @@ public interface OrderService {
      */
     OrderDTO createOrder(Order order);
 
+    /**
+     * Create pending orders for persisted seckill orders in one insert and schedule
+     * their timeouts together. Each order carries its seckill order id as id, so a
+     * redelivered order is not created twice.
+     *
+     * @return the orders that are pending payment, excluding ones already paid or cancelled
+     */
+    List<Order> createSeckillOrders(List<Order> orders);
+
+    /**
+     * Undo a seckill order that can never become a t_order row: free the buyer's
+     * t_seckill_order row and return the stock unit, both idempotently. The order
+     * carries its seckill order id as id, or no id when only the buyer and activity
+     * are known, in which case its order SN keys the stock return.
+     */
+    void rejectSeckillOrder(Order order);
+
     /**
      * Get order by order SN
      */
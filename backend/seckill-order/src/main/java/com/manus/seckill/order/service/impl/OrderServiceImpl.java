@@ -1,16 +1,23 @@
 package com.manus.seckill.order.service.impl;
 
+import com.manus.seckill.common.SnowflakeIdGenerator;
 import com.manus.seckill.order.dto.OrderDTO;
 import com.manus.seckill.order.entity.Order;
 import com.manus.seckill.order.mapper.OrderMapper;
 import com.manus.seckill.order.service.OrderService;
+import com.manus.seckill.order.timeout.OrderTimeoutQueue;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -20,28 +27,94 @@ public class OrderServiceImpl implements OrderService {
     private OrderMapper orderMapper;
 
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private OrderTimeoutQueue orderTimeoutQueue;
 
-    private static final String ORDER_CANCEL_EXCHANGE = "order.cancel.exchange";
-    private static final String ORDER_CANCEL_ROUTING_KEY = "order.cancel.routing.key";
+    @Autowired
+    private SeckillStockRestorer seckillStockRestorer;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Value("${order.timeout.pay-timeout-ms:1800000}")
+    private long payTimeoutMs;
 
     @Override
     public OrderDTO createOrder(Order order) {
-        // Generate order SN
-        order.setOrderSn(generateOrderSn());
+        // Time-ordered id, and the order SN derived from it, so both indexes grow at the right edge
+        order.setId(idGenerator.nextId());
+        order.setOrderSn("ORD" + order.getId());
         order.setStatus(0); // Pending payment
         order.setCreateTime(LocalDateTime.now());
 
         orderMapper.insert(order);
 
-        // Send message to RabbitMQ for delayed cancellation (30 minutes)
-        sendOrderCancellationMessage(order.getOrderSn(), 30 * 60 * 1000); // 30 minutes in milliseconds
+        // Cancelled by OrderTimeoutScheduler unless paid before the deadline
+        orderTimeoutQueue.add(order.getOrderSn(), System.currentTimeMillis() + payTimeoutMs);
 
         log.info("Order created: orderSn={}, userId={}", order.getOrderSn(), order.getUserId());
 
         return convertToDTO(order);
     }
 
+    @Override
+    public List<Order> createSeckillOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            order.setOrderSn(seckillOrderSn(order.getId()));
+            order.setStatus(0);
+            order.setCreateTime(now);
+        }
+
+        List<Order> pending = orders;
+        int inserted = orderMapper.insertBatch(orders);
+        if (inserted < orders.size()) {
+            // Redelivered entries: an order paid or cancelled since must not be timed out or reported again
+            Set<Long> ids = new HashSet<>();
+            for (Order order : orders) {
+                ids.add(order.getId());
+            }
+            Set<Long> pendingIds = new HashSet<>();
+            for (Order existing : orderMapper.selectBatchIds(ids)) {
+                if (existing.getStatus() == 0) {
+                    pendingIds.add(existing.getId());
+                }
+            }
+            pending = new ArrayList<>(pendingIds.size());
+            for (Order order : orders) {
+                if (pendingIds.contains(order.getId())) {
+                    pending.add(order);
+                }
+            }
+            log.warn("{} of {} seckill orders already existed", orders.size() - inserted, orders.size());
+        }
+
+        long deadline = System.currentTimeMillis() + payTimeoutMs;
+        Map<String, Long> deadlines = new HashMap<>(pending.size() * 2);
+        for (Order order : pending) {
+            deadlines.put(order.getOrderSn(), deadline);
+        }
+        orderTimeoutQueue.addAllIfAbsent(deadlines);
+
+        log.debug("Seckill orders created: batch={}, pending={}", orders.size(), pending.size());
+        return pending;
+    }
+
+    @Override
+    public void rejectSeckillOrder(Order order) {
+        if (order.getId() != null) {
+            order.setOrderSn(seckillOrderSn(order.getId()));
+            orderMapper.deleteSeckillOrder(order.getId());
+        } else {
+            orderMapper.deleteSeckillOrderOf(order.getUserId(), order.getSeckillActivityId());
+        }
+        seckillStockRestorer.restore(order);
+        log.warn("Seckill order rejected: orderSn={}, userId={}, activityId={}",
+                order.getOrderSn(), order.getUserId(), order.getSeckillActivityId());
+    }
+
     @Override
     public OrderDTO getOrderByOrderSn(String orderSn) {
         Order order = orderMapper.selectByOrderSn(orderSn);
@@ -67,13 +140,11 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("Order not found");
         }
 
-        if (order.getStatus() != 0) {
+        // Conditional, so a payment can never revive an order whose stock was returned
+        if (order.getStatus() != 0 || orderMapper.payIfPending(orderSn, LocalDateTime.now()) == 0) {
             throw new RuntimeException("Order cannot be paid in current status");
         }
-
-        order.setStatus(1); // Paid
-        order.setPayTime(LocalDateTime.now());
-        orderMapper.updateById(order);
+        orderTimeoutQueue.remove(orderSn);
 
         log.info("Order paid: orderSn={}", orderSn);
     }
@@ -87,29 +158,29 @@ public class OrderServiceImpl implements OrderService {
         }
 
         if (order.getStatus() == 0) {
-            order.setStatus(2); // Cancelled
-            orderMapper.updateById(order);
+            if (orderMapper.cancelIfPending(orderSn) == 0) {
+                log.info("Order paid before cancellation: orderSn={}", orderSn);
+                return;
+            }
             log.info("Order cancelled: orderSn={}", orderSn);
-
-            // TODO: Restore stock to seckill activity
+        } else if (order.getStatus() != 2) {
+            return;
         }
-    }
 
-    private String generateOrderSn() {
-        return "ORD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+        // Also runs for an order cancelled earlier, so a compensation that failed
+        // half-way is completed on redelivery; both steps are idempotent
+        if (order.getSeckillActivityId() != null) {
+            orderMapper.deleteSeckillOrder(order.getId());
+            seckillStockRestorer.restore(order);
+        }
     }
 
-    private void sendOrderCancellationMessage(String orderSn, long delayMillis) {
-        try {
-            // Send message to RabbitMQ with TTL (Time To Live)
-            rabbitTemplate.convertAndSend(ORDER_CANCEL_EXCHANGE, ORDER_CANCEL_ROUTING_KEY, orderSn, message -> {
-                message.getMessageProperties().setExpiration(String.valueOf(delayMillis));
-                return message;
-            });
-            log.info("Order cancellation message sent: orderSn={}, delay={}ms", orderSn, delayMillis);
-        } catch (Exception e) {
-            log.error("Failed to send order cancellation message", e);
-        }
+    /**
+     * Derived from the seckill order id, so every delivery of an order gets the same SN;
+     * seckill order ids come from the same worker-leased id space as order ids
+     */
+    private static String seckillOrderSn(Long seckillOrderId) {
+        return "SK" + seckillOrderId;
     }
 
     private OrderDTO convertToDTO(Order order) {
@@ -0,0 +1,68 @@
+package com.manus.seckill.order.service.impl;
+
+import com.manus.seckill.common.SeckillResults;
+import com.manus.seckill.order.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Puts the unit of a cancelled seckill order back into the Redis stock
+ * counter, clears the buyer from the participant set and tells the seckill
+ * nodes the activity is available again, all in one script. A marker per
+ * order SN makes repeated calls for the same order a no-op.
+ * <p>
+ * In bloom participant mode the buyer's bits stay set; the set is the
+ * authority, so the buyer may still take part again.
+ */
+@Slf4j
+@Component
+public class SeckillStockRestorer {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${order.restore.marker-ttl-seconds:604800}")
+    private long markerTtlSeconds;
+
+    private static final String RESTORE_MARKER_PREFIX = "seckill:restore:";
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String SECKILL_USERS_PREFIX = "seckill:users:";
+
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        RESTORE_SCRIPT.setLocation(new ClassPathResource("lua/restore_stock.lua"));
+        RESTORE_SCRIPT.setResultType(Long.class);
+    }
+
+    public void restore(Order order) {
+        Long activityId = order.getSeckillActivityId();
+        Long userId = order.getUserId();
+        Long result = stringRedisTemplate.execute(RESTORE_SCRIPT,
+                Arrays.asList(RESTORE_MARKER_PREFIX + order.getOrderSn(),
+                        SECKILL_STOCK_PREFIX + activityId,
+                        SECKILL_USERS_PREFIX + activityId,
+                        SeckillResults.key(activityId, userId)),
+                String.valueOf(userId), String.valueOf(activityId), String.valueOf(markerTtlSeconds));
+
+        if (result == null) {
+            throw new RuntimeException("Stock restore returned no result for order " + order.getOrderSn());
+        }
+        if (result == 1) {
+            log.info("Returned stock of cancelled order {} to seckill activity {}", order.getOrderSn(), activityId);
+        } else if (result == 0) {
+            log.debug("Stock of order {} already returned", order.getOrderSn());
+        } else {
+            log.info("Seckill activity {} is no longer loaded, stock of order {} not returned",
+                    activityId, order.getOrderSn());
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.manus.seckill.order.timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: each level has wheelSize buckets of tickMs,
+ * and a deadline beyond a level's span goes to an overflow level whose tick
+ * is the whole span of the level below. Adding a task is O(1) and only
+ * non-empty buckets sit in the DelayQueue, so the driver thread wakes once
+ * per occupied bucket instead of once per task. When an overflow bucket
+ * expires its tasks are re-added and fall into a finer level.
+ * <p>
+ * Items never fire before their deadline and at most one tick after it.
+ * {@link #schedule} may be called from any thread; {@link #advance} must be
+ * driven by a single thread.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final DelayQueue<Bucket<T>> queue = new DelayQueue<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final long tickMs;
+
+    private final Level<T> root;
+
+    private final Consumer<T> onExpire;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, Consumer<T> onExpire) {
+        this.tickMs = tickMs;
+        this.root = new Level<>(tickMs, wheelSize, System.currentTimeMillis(), queue);
+        this.onExpire = onExpire;
+    }
+
+    /**
+     * Fire item at deadlineMs; a deadline already reached fires on the calling thread
+     */
+    public void schedule(T item, long deadlineMs) {
+        lock.readLock().lock();
+        try {
+            // Buckets expire at the start of their tick; round up so nothing fires early
+            addOrFire(new Task<>(item, deadlineMs + tickMs - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Wait up to timeoutMs for the next bucket to expire and fire everything due
+     *
+     * @return whether any bucket expired
+     */
+    public boolean advance(long timeoutMs) throws InterruptedException {
+        Bucket<T> bucket = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                root.advanceClock(bucket.getExpiration());
+                List<Task<T>> tasks = bucket.flush();
+                size.addAndGet(-tasks.size());
+                for (Task<T> task : tasks) {
+                    addOrFire(task);
+                }
+                bucket = queue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Tasks waiting in the wheel
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void addOrFire(Task<T> task) {
+        if (root.add(task)) {
+            size.incrementAndGet();
+            return;
+        }
+        onExpire.accept(task.item);
+    }
+
+    private static final class Task<T> {
+
+        private final T item;
+        private final long dueMs;
+
+        Task(T item, long dueMs) {
+            this.item = item;
+            this.dueMs = dueMs;
+        }
+
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private final DelayQueue<Bucket<T>> queue;
+
+        /**
+         * Start of the current tick, always a multiple of tickMs
+         */
+        private long currentTime;
+
+        private volatile Level<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs, DelayQueue<Bucket<T>> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.queue = queue;
+            this.currentTime = startMs - startMs % tickMs;
+        }
+
+        /**
+         * @return false when the task is already due and must fire now
+         */
+        boolean add(Task<T> task) {
+            long deadline = task.dueMs;
+            if (deadline < currentTime + tickMs) {
+                return false;
+            }
+            if (deadline < currentTime + interval) {
+                long virtualId = deadline / tickMs;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(task);
+                // Only the first task since the bucket was last flushed enqueues it
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            return overflow().add(task);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - timeMs % tickMs;
+                Level<T> next = overflow;
+                if (next != null) {
+                    next.advanceClock(currentTime);
+                }
+            }
+        }
+
+        private Level<T> overflow() {
+            Level<T> next = overflow;
+            if (next == null) {
+                synchronized (this) {
+                    next = overflow;
+                    if (next == null) {
+                        next = new Level<>(interval, wheelSize, currentTime, queue);
+                        overflow = next;
+                    }
+                }
+            }
+            return next;
+        }
+
+    }
+
+    private static final class Bucket<T> implements Delayed {
+
+        private final AtomicLong expiration = new AtomicLong(-1);
+
+        private List<Task<T>> tasks = new ArrayList<>();
+
+        synchronized void add(Task<T> task) {
+            tasks.add(task);
+        }
+
+        synchronized List<Task<T>> flush() {
+            List<Task<T>> flushed = tasks;
+            tasks = new ArrayList<>();
+            expiration.set(-1);
+            return flushed;
+        }
+
+        boolean setExpiration(long expirationMs) {
+            return expiration.getAndSet(expirationMs) != expirationMs;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(expiration.get() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket<?>) other).getExpiration());
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.manus.seckill.order.timeout;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable record of pending-payment deadlines, a Redis sorted set of order
+ * SN scored by deadline. It is the source of truth shared by all order
+ * nodes; {@link OrderTimeoutScheduler} only keeps the next few minutes of it
+ * in memory.
+ */
+@Component
+public class OrderTimeoutQueue {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private static final String TIMEOUT_KEY = "order:timeout";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        CLAIM_SCRIPT.setLocation(new ClassPathResource("lua/claim_order_timeouts.lua"));
+        CLAIM_SCRIPT.setResultType(List.class);
+    }
+
+    public void add(String orderSn, long deadlineMs) {
+        stringRedisTemplate.opsForZSet().add(TIMEOUT_KEY, orderSn, deadlineMs);
+    }
+
+    /**
+     * Order SN to deadline in one ZADD NX; orders already waiting keep their deadline
+     */
+    public void addAllIfAbsent(Map<String, Long> deadlines) {
+        if (deadlines.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(deadlines.size() * 2);
+        deadlines.forEach((orderSn, deadlineMs) ->
+                tuples.add(ZSetOperations.TypedTuple.of(orderSn, deadlineMs.doubleValue())));
+        stringRedisTemplate.opsForZSet().addIfAbsent(TIMEOUT_KEY, tuples);
+    }
+
+    /**
+     * The order no longer times out, e.g. it was paid
+     */
+    public void remove(String orderSn) {
+        stringRedisTemplate.opsForZSet().remove(TIMEOUT_KEY, orderSn);
+    }
+
+    /**
+     * Cancellation finished for these orders
+     */
+    public void complete(List<String> orderSns) {
+        if (!orderSns.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(TIMEOUT_KEY, orderSns.toArray());
+        }
+    }
+
+    /**
+     * Order SN to deadline for entries due up to untilMs, earliest first
+     */
+    public Map<String, Long> dueBefore(long untilMs, int limit) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(TIMEOUT_KEY, 0, untilMs, 0, limit);
+        Map<String, Long> due = new LinkedHashMap<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                due.put(tuple.getValue(), tuple.getScore().longValue());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Orders waiting for payment or cancellation
+     */
+    public long size() {
+        Long size = stringRedisTemplate.opsForZSet().zCard(TIMEOUT_KEY);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * Entries whose deadline, or claim lease, has passed without being completed
+     */
+    public long countDueBefore(long untilMs) {
+        Long count = stringRedisTemplate.opsForZSet().count(TIMEOUT_KEY, 0, untilMs);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Claim due entries for this node; claimed entries come back after leaseMs unless completed
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> claim(List<String> orderSns, long nowMs, long leaseMs) {
+        if (orderSns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> args = new ArrayList<>(orderSns.size() + 2);
+        args.add(String.valueOf(nowMs));
+        args.add(String.valueOf(leaseMs));
+        args.addAll(orderSns);
+        List<String> claimed = stringRedisTemplate.execute(CLAIM_SCRIPT,
+                Collections.singletonList(TIMEOUT_KEY), args.toArray());
+        return claimed != null ? claimed : Collections.emptyList();
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.manus.seckill.order.timeout;
+
+import com.manus.seckill.order.service.OrderService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels unpaid orders at their deadline. Deadlines live in
+ * {@link OrderTimeoutQueue}; every node periodically loads the entries due
+ * within the horizon into a local {@link HierarchicalTimingWheel}, which
+ * fires them on time. Expired order SNs are claimed in batches with one
+ * script call, so each order is cancelled by exactly one node, and a node
+ * that dies mid-batch leaves its claims to be retried after the lease.
+ */
+@Slf4j
+@Component
+public class OrderTimeoutScheduler {
+
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.timeout.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.timeout.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${order.timeout.wheel-size:512}")
+    private int wheelSize;
+
+    /**
+     * How far ahead deadlines are loaded into the wheel; must exceed poll-interval-ms
+     */
+    @Value("${order.timeout.horizon-ms:300000}")
+    private long horizonMs;
+
+    @Value("${order.timeout.max-load:10000}")
+    private int maxLoad;
+
+    @Value("${order.timeout.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.timeout.lease-ms:60000}")
+    private long leaseMs;
+
+    private static final long ADVANCE_TIMEOUT_MS = 200;
+
+    private HierarchicalTimingWheel<String> wheel;
+
+    /**
+     * Order SNs currently in the wheel, so repeated loads do not schedule them twice
+     */
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    private final BlockingQueue<String> expired = new LinkedBlockingQueue<>();
+
+    private Thread driver;
+    private Thread canceller;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        // Read from Redis at scrape time; shared by all nodes, so tagged by application only
+        Gauge.builder("seckill.order.timeout.pending", orderTimeoutQueue, OrderTimeoutQueue::size)
+                .description("Orders in order:timeout awaiting payment or cancellation")
+                .register(meterRegistry);
+        Gauge.builder("seckill.order.timeout.overdue", orderTimeoutQueue,
+                        queue -> queue.countDueBefore(System.currentTimeMillis()))
+                .description("Orders past their deadline and not yet cancelled")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, orderSn -> {
+            scheduled.remove(orderSn);
+            expired.add(orderSn);
+        });
+        Gauge.builder("seckill.order.timeout.wheel", wheel, HierarchicalTimingWheel::size)
+                .description("Deadlines loaded into this node's timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("seckill.order.timeout.expired", expired, BlockingQueue::size)
+                .description("Expired orders waiting to be claimed and cancelled on this node")
+                .register(meterRegistry);
+
+        running = true;
+        driver = new Thread(this::drive, "order-timeout-wheel");
+        driver.setDaemon(true);
+        driver.start();
+        canceller = new Thread(this::cancelExpired, "order-timeout-cancel");
+        canceller.setDaemon(true);
+        canceller.start();
+        log.info("Order timeout scheduler started: tick={}ms, wheelSize={}, horizon={}ms",
+                tickMs, wheelSize, horizonMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (driver != null) {
+            driver.interrupt();
+            canceller.interrupt();
+        }
+    }
+
+    /**
+     * Pull deadlines due within the horizon, including overdue ones left by stopped nodes
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${order.timeout.poll-interval-ms:10000}")
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<String, Long> due = orderTimeoutQueue.dueBefore(System.currentTimeMillis() + horizonMs, maxLoad);
+            int added = 0;
+            for (Map.Entry<String, Long> entry : due.entrySet()) {
+                if (scheduled.add(entry.getKey())) {
+                    wheel.schedule(entry.getKey(), entry.getValue());
+                    added++;
+                }
+            }
+            if (added > 0) {
+                log.debug("Loaded {} order timeouts, {} waiting in the wheel", added, wheel.size());
+            }
+        } catch (Exception e) {
+            log.error("Failed to load order timeouts", e);
+        }
+    }
+
+    private void drive() {
+        while (running) {
+            try {
+                wheel.advance(ADVANCE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("Order timeout wheel failed to advance", e);
+            }
+        }
+    }
+
+    private void cancelExpired() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(expired.take());
+                expired.drainTo(batch, batchSize - 1);
+                cancelBatch(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Claimed entries come back after the lease, unclaimed ones on the next load
+                log.error("Failed to cancel {} timed-out orders", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void cancelBatch(List<String> orderSns) {
+        List<String> claimed = orderTimeoutQueue.claim(orderSns, System.currentTimeMillis(), leaseMs);
+        List<String> done = new ArrayList<>(claimed.size());
+        for (String orderSn : claimed) {
+            try {
+                orderService.cancelOrder(orderSn);
+                done.add(orderSn);
+            } catch (Exception e) {
+                log.error("Failed to cancel timed-out order {}, retrying after lease", orderSn, e);
+            }
+        }
+        orderTimeoutQueue.complete(done);
+        if (!claimed.isEmpty()) {
+            log.info("Cancelled {} timed-out orders, {} claimed elsewhere or already paid",
+                    done.size(), orderSns.size() - claimed.size());
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+-- Claim due order timeouts so exactly one node cancels each order.
+--
+-- KEYS[1] timeout set        order:timeout (score = deadline, epoch ms)
+-- ARGV[1] now, epoch ms
+-- ARGV[2] lease, ms
+-- ARGV[3..n] order SNs
+--
+-- A claimed entry is pushed back by the lease rather than removed, so it
+-- fires again if the claiming node dies before completing it. Entries that
+-- are gone (paid, done) or not yet due are skipped.
+--
+-- Returns the claimed order SNs
+local now = tonumber(ARGV[1])
+local leaseUntil = now + tonumber(ARGV[2])
+local claimed = {}
+
+for i = 3, #ARGV do
+    local deadline = redis.call('ZSCORE', KEYS[1], ARGV[i])
+    if deadline and tonumber(deadline) <= now then
+        redis.call('ZADD', KEYS[1], leaseUntil, ARGV[i])
+        claimed[#claimed + 1] = ARGV[i]
+    end
+end
+
+return claimed
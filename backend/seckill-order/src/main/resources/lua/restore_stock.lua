@@ -0,0 +1,26 @@
+-- Return the stock unit of a cancelled seckill order, at most once per order.
+--
+-- KEYS[1] restore marker     seckill:restore:{orderSn}
+-- KEYS[2] stock counter      seckill:stock:{activityId}
+-- KEYS[3] participant set    seckill:users:{activityId}
+-- KEYS[4] seckill result     seckill:result:{activityId}:{userId}
+-- ARGV[1] userId
+-- ARGV[2] activityId
+-- ARGV[3] marker TTL, seconds
+--
+-- Returns 1 restored, 0 already restored, -1 stock no longer loaded
+if not redis.call('SET', KEYS[1], '1', 'NX', 'EX', ARGV[3]) then
+    return 0
+end
+
+-- Never recreate a counter that expired with its activity
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    return -1
+end
+
+redis.call('INCR', KEYS[2])
+redis.call('SREM', KEYS[3], ARGV[1])
+redis.call('DEL', KEYS[4])
+-- Seckill nodes drop their sold-out flag and sell the unit again
+redis.call('PUBLISH', 'seckill:soldout', 'available:' .. ARGV[2])
+return 1
@@ -0,0 +1,91 @@
+package com.manus.seckill.order.timeout;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    /**
+     * 4 buckets of 10ms: the root spans 40ms, the first overflow 160ms and
+     * the second 640ms, so the offsets below land on three levels
+     */
+    private static final int WHEEL_SIZE = 4;
+
+    @Test
+    void firesInDeadlineOrderAcrossOverflowLevels() throws InterruptedException {
+        List<Long> fired = new ArrayList<>();
+        Map<Long, Long> firedAt = new ConcurrentHashMap<>();
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, deadline -> {
+            firedAt.put(deadline, System.currentTimeMillis());
+            fired.add(deadline);
+        });
+
+        long now = System.currentTimeMillis();
+        long[] offsets = {350, 25, 170, 5, 90, 45, 260, 15};
+        List<Long> expected = new ArrayList<>();
+        for (long offset : offsets) {
+            wheel.schedule(now + offset, now + offset);
+            expected.add(now + offset);
+        }
+        expected.sort(Long::compare);
+        assertEquals(offsets.length, wheel.size());
+
+        drain(wheel, now + 2_000);
+
+        assertEquals(expected, fired);
+        assertEquals(0, wheel.size());
+        for (Map.Entry<Long, Long> entry : firedAt.entrySet()) {
+            assertTrue(entry.getValue() >= entry.getKey(),
+                    "fired " + (entry.getKey() - entry.getValue()) + "ms early");
+        }
+    }
+
+    @Test
+    void neverFiresBeforeDeadlineOnTickBoundaries() throws InterruptedException {
+        Map<Long, Long> firedAt = new ConcurrentHashMap<>();
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE,
+                deadline -> firedAt.put(deadline, System.currentTimeMillis()));
+
+        // Deadlines one millisecond either side of each level's span
+        long now = System.currentTimeMillis();
+        long[] offsets = {TICK_MS - 1, TICK_MS + 1, 39, 41, 159, 161, 639, 641};
+        for (long offset : offsets) {
+            wheel.schedule(now + offset, now + offset);
+        }
+
+        drain(wheel, now + 3_000);
+
+        assertEquals(offsets.length, firedAt.size());
+        for (Map.Entry<Long, Long> entry : firedAt.entrySet()) {
+            assertTrue(entry.getValue() >= entry.getKey(),
+                    "fired " + (entry.getKey() - entry.getValue()) + "ms early");
+        }
+    }
+
+    @Test
+    void pastDeadlineFiresOnCallingThread() {
+        List<String> fired = new ArrayList<>();
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, fired::add);
+
+        wheel.schedule("late", System.currentTimeMillis() - 1_000);
+
+        assertEquals(List.of("late"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    private static void drain(HierarchicalTimingWheel<?> wheel, long giveUpAt) throws InterruptedException {
+        while (wheel.size() > 0 && System.currentTimeMillis() < giveUpAt) {
+            wheel.advance(50);
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.manus.seckill.product.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Cached value with a logical expiry. The Redis key lives longer than this
+ * deadline so a stale value can still be served while one thread refreshes it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Object value;
+
+    private long logicalExpireAt;
+
+    public boolean isExpired() {
+        return System.currentTimeMillis() >= logicalExpireAt;
+    }
+
+}
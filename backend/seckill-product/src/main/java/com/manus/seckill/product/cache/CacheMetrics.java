@@ -0,0 +1,65 @@
+package com.manus.seckill.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts single-key cache lookups by the tier that answered them, exported
+ * as seckill.cache.lookups{cache, tier}. The hit ratio of a cache is
+ * (near + redis + negative) over all lookups that passed the id filter.
+ */
+@Component
+public class CacheMetrics {
+
+    public enum Tier {
+        /**
+         * Rejected by the id filter before any cache
+         */
+        FILTERED,
+        NEAR,
+        REDIS,
+        /**
+         * Cached "does not exist" marker
+         */
+        NEGATIVE,
+        DATABASE
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Tier, Counter> product = new EnumMap<>(Tier.class);
+    private final Map<Tier, Counter> activity = new EnumMap<>(Tier.class);
+
+    @PostConstruct
+    public void init() {
+        for (Tier tier : Tier.values()) {
+            product.put(tier, counter("product", tier));
+            activity.put(tier, counter("activity", tier));
+        }
+    }
+
+    public void product(Tier tier) {
+        product.get(tier).increment();
+    }
+
+    public void activity(Tier tier) {
+        activity.get(tier).increment();
+    }
+
+    private Counter counter(String cache, Tier tier) {
+        return Counter.builder("seckill.cache.lookups")
+                .description("Single-key cache lookups by answering tier")
+                .tag("cache", cache)
+                .tag("tier", tier.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+}
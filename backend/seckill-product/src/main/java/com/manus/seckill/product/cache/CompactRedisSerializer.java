@@ -0,0 +1,387 @@
+package com.manus.seckill.product.cache;
+
+import com.manus.seckill.product.dto.PageDTO;
+import com.manus.seckill.product.dto.ProductDTO;
+import com.manus.seckill.product.dto.SeckillActivityDTO;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hand-written binary encoding for the values the product service keeps in
+ * Redis. Every value starts with a type tag and a version byte; the payload
+ * is a presence bitmask for nullable fields followed by the fields as
+ * varints and length-prefixed UTF-8. A new field means a new version, and
+ * readers keep decoding every older version.
+ * <p>
+ * With readLegacy, values written by {@link JdkSerializationRedisSerializer}
+ * (recognised by the 0xACED stream header) are still decoded.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte PRODUCT = 1;
+    private static final byte ACTIVITY = 2;
+    private static final byte LIST = 3;
+    private static final byte ENVELOPE = 4;
+    private static final byte NULL_VALUE = 5;
+    private static final byte STRING = 6;
+    private static final byte PAGE = 7;
+
+    private static final byte V1 = 1;
+
+    private final boolean readLegacy;
+
+    private final JdkSerializationRedisSerializer legacy = new JdkSerializationRedisSerializer();
+
+    public CompactRedisSerializer(boolean readLegacy) {
+        this.readLegacy = readLegacy;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        Writer out = new Writer();
+        write(out, value);
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED) {
+            if (!readLegacy) {
+                throw new SerializationException("JDK-serialized value found and legacy reading is disabled");
+            }
+            return legacy.deserialize(bytes);
+        }
+        try {
+            return read(new Reader(bytes));
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated compact value", e);
+        }
+    }
+
+    private void write(Writer out, Object value) {
+        if (value instanceof ProductDTO) {
+            writeProduct(out, (ProductDTO) value);
+        } else if (value instanceof SeckillActivityDTO) {
+            writeActivity(out, (SeckillActivityDTO) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.header(LIST, V1);
+            out.varint(list.size());
+            for (Object element : list) {
+                write(out, element);
+            }
+        } else if (value instanceof CacheEnvelope) {
+            CacheEnvelope envelope = (CacheEnvelope) value;
+            out.header(ENVELOPE, V1);
+            out.varint(envelope.getLogicalExpireAt());
+            write(out, envelope.getValue());
+        } else if (value instanceof PageDTO) {
+            writePage(out, (PageDTO<?>) value);
+        } else if (value instanceof NullValue) {
+            out.header(NULL_VALUE, V1);
+        } else if (value instanceof String) {
+            out.header(STRING, V1);
+            out.string((String) value);
+        } else {
+            throw new SerializationException("No compact encoding for " + value.getClass().getName());
+        }
+    }
+
+    private Object read(Reader in) {
+        byte type = in.readByte();
+        byte version = in.readByte();
+        if (version != V1) {
+            throw new SerializationException("Unknown version " + version + " for value type " + type);
+        }
+        switch (type) {
+            case PRODUCT:
+                return readProduct(in);
+            case ACTIVITY:
+                return readActivity(in);
+            case LIST:
+                int size = (int) in.varint();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(in));
+                }
+                return list;
+            case ENVELOPE:
+                long logicalExpireAt = in.varint();
+                return new CacheEnvelope(read(in), logicalExpireAt);
+            case NULL_VALUE:
+                return NullValue.INSTANCE;
+            case STRING:
+                return in.string();
+            case PAGE:
+                return readPage(in);
+            default:
+                throw new SerializationException("Unknown compact value type " + type);
+        }
+    }
+
+    private static void writeProduct(Writer out, ProductDTO product) {
+        out.header(PRODUCT, V1);
+        out.mask(product.getId(), product.getName(), product.getPrice(), product.getStock(),
+                product.getDescription(), product.getStatus());
+        if (product.getId() != null) {
+            out.varint(product.getId());
+        }
+        if (product.getName() != null) {
+            out.string(product.getName());
+        }
+        if (product.getPrice() != null) {
+            out.decimal(product.getPrice());
+        }
+        if (product.getStock() != null) {
+            out.zigzag(product.getStock());
+        }
+        if (product.getDescription() != null) {
+            out.string(product.getDescription());
+        }
+        if (product.getStatus() != null) {
+            out.zigzag(product.getStatus());
+        }
+    }
+
+    private static ProductDTO readProduct(Reader in) {
+        int mask = in.readByte() & 0xFF;
+        ProductDTO product = new ProductDTO();
+        if ((mask & 1) != 0) {
+            product.setId(in.varint());
+        }
+        if ((mask & 1 << 1) != 0) {
+            product.setName(in.string());
+        }
+        if ((mask & 1 << 2) != 0) {
+            product.setPrice(in.decimal());
+        }
+        if ((mask & 1 << 3) != 0) {
+            product.setStock((int) in.zigzag());
+        }
+        if ((mask & 1 << 4) != 0) {
+            product.setDescription(in.string());
+        }
+        if ((mask & 1 << 5) != 0) {
+            product.setStatus((int) in.zigzag());
+        }
+        return product;
+    }
+
+    private void writePage(Writer out, PageDTO<?> page) {
+        out.header(PAGE, V1);
+        out.mask(page.getNextCursor(), page.getEtag());
+        if (page.getNextCursor() != null) {
+            out.varint(page.getNextCursor());
+        }
+        if (page.getEtag() != null) {
+            out.string(page.getEtag());
+        }
+        write(out, page.getItems() != null ? page.getItems() : Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PageDTO<Object> readPage(Reader in) {
+        int mask = in.readByte() & 0xFF;
+        PageDTO<Object> page = new PageDTO<>();
+        if ((mask & 1) != 0) {
+            page.setNextCursor(in.varint());
+        }
+        if ((mask & 1 << 1) != 0) {
+            page.setEtag(in.string());
+        }
+        page.setItems((List<Object>) read(in));
+        return page;
+    }
+
+    private static void writeActivity(Writer out, SeckillActivityDTO activity) {
+        out.header(ACTIVITY, V1);
+        out.mask(activity.getId(), activity.getProductId(), activity.getProductName(), activity.getSeckillPrice(),
+                activity.getSeckillStock(), activity.getStartTime(), activity.getEndTime(), activity.getStatus());
+        if (activity.getId() != null) {
+            out.varint(activity.getId());
+        }
+        if (activity.getProductId() != null) {
+            out.varint(activity.getProductId());
+        }
+        if (activity.getProductName() != null) {
+            out.string(activity.getProductName());
+        }
+        if (activity.getSeckillPrice() != null) {
+            out.decimal(activity.getSeckillPrice());
+        }
+        if (activity.getSeckillStock() != null) {
+            out.zigzag(activity.getSeckillStock());
+        }
+        if (activity.getStartTime() != null) {
+            out.dateTime(activity.getStartTime());
+        }
+        if (activity.getEndTime() != null) {
+            out.dateTime(activity.getEndTime());
+        }
+        if (activity.getStatus() != null) {
+            out.zigzag(activity.getStatus());
+        }
+    }
+
+    private static SeckillActivityDTO readActivity(Reader in) {
+        int mask = in.readByte() & 0xFF;
+        SeckillActivityDTO activity = new SeckillActivityDTO();
+        if ((mask & 1) != 0) {
+            activity.setId(in.varint());
+        }
+        if ((mask & 1 << 1) != 0) {
+            activity.setProductId(in.varint());
+        }
+        if ((mask & 1 << 2) != 0) {
+            activity.setProductName(in.string());
+        }
+        if ((mask & 1 << 3) != 0) {
+            activity.setSeckillPrice(in.decimal());
+        }
+        if ((mask & 1 << 4) != 0) {
+            activity.setSeckillStock((int) in.zigzag());
+        }
+        if ((mask & 1 << 5) != 0) {
+            activity.setStartTime(in.dateTime());
+        }
+        if ((mask & 1 << 6) != 0) {
+            activity.setEndTime(in.dateTime());
+        }
+        if ((mask & 1 << 7) != 0) {
+            activity.setStatus((int) in.zigzag());
+        }
+        return activity;
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(64);
+        }
+
+        void header(byte type, byte version) {
+            write(type);
+            write(version);
+        }
+
+        /**
+         * One bit per field, set when the field is present; at most eight fields
+         */
+        void mask(Object... fields) {
+            int mask = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    mask |= 1 << i;
+                }
+            }
+            write(mask);
+        }
+
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void decimal(BigDecimal value) {
+            zigzag(value.scale());
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            varint(unscaled.length);
+            write(unscaled, 0, unscaled.length);
+        }
+
+        /**
+         * Wall-clock fields as stored in MySQL, without any zone conversion
+         */
+        void dateTime(LocalDateTime value) {
+            zigzag(value.toEpochSecond(ZoneOffset.UTC));
+            varint(value.getNano());
+        }
+
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte readByte() {
+            return bytes[position++];
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint");
+        }
+
+        long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String string() {
+            int length = (int) varint();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal decimal() {
+            int scale = (int) zigzag();
+            int length = (int) varint();
+            byte[] unscaled = new byte[length];
+            System.arraycopy(bytes, position, unscaled, 0, length);
+            position += length;
+            return new BigDecimal(new BigInteger(unscaled), scale);
+        }
+
+        LocalDateTime dateTime() {
+            long epochSecond = zigzag();
+            int nano = (int) varint();
+            return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+
+    }
+
+}
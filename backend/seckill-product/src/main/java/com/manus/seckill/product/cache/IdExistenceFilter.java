@@ -0,0 +1,212 @@
+package com.manus.seckill.product.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.common.LongBloomFilter;
+import com.manus.seckill.product.entity.Product;
+import com.manus.seckill.product.entity.SeckillActivity;
+import com.manus.seckill.product.mapper.ProductMapper;
+import com.manus.seckill.product.mapper.SeckillActivityMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * In-process Bloom filters of every product and activity id, so requests
+ * for ids that never existed are rejected before any cache or database
+ * access. Built from MySQL at startup and rebuilt periodically; ids created
+ * in between are added on every node over Redis pub/sub. Deleted ids stay
+ * in the filter and are caught by the negative cache instead.
+ */
+@Slf4j
+@Component
+public class IdExistenceFilter implements ApplicationRunner, MessageListener {
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${product.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.id-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${product.id-filter.fpp:0.001}")
+    private double fpp;
+
+    private static final String ADD_CHANNEL = "product:id-filter:add";
+    private static final String PRODUCT = "product";
+    private static final String ACTIVITY = "activity";
+    private static final int PAGE_SIZE = 1000;
+
+    private final Filter products = new Filter(PRODUCT);
+    private final Filter activities = new Filter(ACTIVITY);
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(ADD_CHANNEL));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild from MySQL so the filters follow the table size and drop deleted ids
+     */
+    @Scheduled(initialDelayString = "${product.id-filter.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${product.id-filter.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Only the primary key is read, in keyset pages
+            products.rebuild(afterId -> productMapper.selectList(new LambdaQueryWrapper<Product>()
+                            .select(Product::getId)
+                            .gt(Product::getId, afterId)
+                            .orderByAsc(Product::getId)
+                            .last("LIMIT " + PAGE_SIZE))
+                    .stream().map(Product::getId).collect(Collectors.toList()));
+            activities.rebuild(afterId -> seckillActivityMapper.selectList(new LambdaQueryWrapper<SeckillActivity>()
+                            .select(SeckillActivity::getId)
+                            .gt(SeckillActivity::getId, afterId)
+                            .orderByAsc(SeckillActivity::getId)
+                            .last("LIMIT " + PAGE_SIZE))
+                    .stream().map(SeckillActivity::getId).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Failed to build id filters, unknown ids are let through until the next rebuild", e);
+        }
+    }
+
+    public boolean mightContainProduct(Long id) {
+        return !enabled || products.mightContain(id);
+    }
+
+    public boolean mightContainActivity(Long id) {
+        return !enabled || activities.mightContain(id);
+    }
+
+    public void addProduct(Long id) {
+        products.add(id);
+        stringRedisTemplate.convertAndSend(ADD_CHANNEL, PRODUCT + ":" + id);
+    }
+
+    public void addActivity(Long id) {
+        activities.add(id);
+        stringRedisTemplate.convertAndSend(ADD_CHANNEL, ACTIVITY + ":" + id);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        Long id = Long.valueOf(body.substring(separator + 1));
+        if (body.startsWith(PRODUCT + ":")) {
+            products.add(id);
+        } else if (body.startsWith(ACTIVITY + ":")) {
+            activities.add(id);
+        }
+    }
+
+    private class Filter {
+
+        private final String name;
+
+        /**
+         * Null until the first build finishes; everything passes meanwhile
+         */
+        private volatile LongBloomFilter current;
+
+        /**
+         * Filter under construction, receives concurrent adds so none are lost on swap
+         */
+        private volatile LongBloomFilter next;
+
+        private final ReentrantLock rebuilding = new ReentrantLock();
+
+        Filter(String name) {
+            this.name = name;
+        }
+
+        boolean mightContain(Long id) {
+            LongBloomFilter filter = current;
+            return filter == null || id == null || filter.mightContain(id);
+        }
+
+        void add(Long id) {
+            LongBloomFilter building = next;
+            if (building != null) {
+                building.add(id);
+            }
+            LongBloomFilter filter = current;
+            if (filter != null) {
+                filter.add(id);
+            }
+        }
+
+        void rebuild(LongFunction<List<Long>> pageAfter) {
+            // A lock rather than synchronized, so paging through MySQL on a virtual thread does not pin it
+            rebuilding.lock();
+            try {
+                rebuildLocked(pageAfter);
+            } finally {
+                rebuilding.unlock();
+            }
+        }
+
+        private void rebuildLocked(LongFunction<List<Long>> pageAfter) {
+            LongBloomFilter building = new LongBloomFilter(expectedInsertions, fpp);
+            next = building;
+            long lastId = 0;
+            long total = 0;
+            while (true) {
+                List<Long> ids = pageAfter.apply(lastId);
+                for (Long id : ids) {
+                    building.add(id);
+                }
+                total += ids.size();
+                if (ids.size() < PAGE_SIZE) {
+                    break;
+                }
+                lastId = ids.get(ids.size() - 1);
+            }
+            current = building;
+            next = null;
+            if (total > expectedInsertions) {
+                log.warn("{} id filter holds {} ids, above expected {}, false positive rate will rise",
+                        name, total, expectedInsertions);
+            }
+            log.info("{} id filter built with {} ids", name, total);
+        }
+
+    }
+
+}
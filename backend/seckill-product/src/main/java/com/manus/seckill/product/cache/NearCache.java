@@ -0,0 +1,83 @@
+package com.manus.seckill.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-JVM tier in front of the Redis cache, keyed by the same Redis keys
+ * (product:{id}, seckill:activity:{id}). Writers call {@link #evict}, which
+ * drops the entry here and tells every other node to drop it too; the TTL
+ * bounds staleness if a message is lost.
+ */
+@Slf4j
+@Component
+public class NearCache implements MessageListener {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${product.near-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.near-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${product.near-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private static final String INVALIDATE_CHANNEL = "product:cache:invalidate";
+
+    private Cache<String, Object> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        return enabled ? (T) cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, Object value) {
+        if (enabled) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Drop the key on this node and broadcast the eviction to the others
+     */
+    public void evict(String key) {
+        cache.invalidate(key);
+        stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, key);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        cache.invalidate(key);
+        log.debug("Near cache entry {} invalidated", key);
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.manus.seckill.product.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Loads expensive Redis entries (the product and activity lists) so that a
+ * miss costs one database load per key, not one per concurrent request:
+ * <ul>
+ *     <li>callers on the same node share one in-flight load per key</li>
+ *     <li>across nodes a SET NX mutex lets one loader through, the rest wait for its value</li>
+ *     <li>with logical expiry the stale value keeps being served while one thread refreshes it</li>
+ * </ul>
+ * All TTLs are jittered so entries written together do not expire together.
+ */
+@Slf4j
+@Component
+public class SingleFlightCache {
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${product.cache.logical-expiry:true}")
+    private boolean logicalExpiry;
+
+    @Value("${product.cache.ttl-jitter:0.1}")
+    private double ttlJitter;
+
+    @Value("${product.cache.lock-ttl-ms:10000}")
+    private long lockTtlMs;
+
+    @Value("${product.cache.lock-wait-ms:3000}")
+    private long lockWaitMs;
+
+    private static final String LOCK_PREFIX = "lock:cache:";
+    private static final long LOCK_POLL_MS = 50;
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        UNLOCK_SCRIPT.setLocation(new ClassPathResource("lua/unlock.lua"));
+        UNLOCK_SCRIPT.setResultType(Long.class);
+    }
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * At most one lock timeout warning per second; every waiter times out together
+     */
+    private volatile long lastWarnMillis;
+
+    private final ExecutorService refresher = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "cache-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Cached value for key, loading it at most once per node at a time on a miss
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, long ttlSeconds, Supplier<T> loader) {
+        Object cached = redisTemplate.opsForValue().get(key);
+        if (cached instanceof CacheEnvelope) {
+            CacheEnvelope envelope = (CacheEnvelope) cached;
+            if (envelope.isExpired()) {
+                refreshAsync(key, ttlSeconds, loader);
+            }
+            return (T) envelope.getValue();
+        }
+        if (cached != null) {
+            return (T) cached;
+        }
+        return (T) loadOnce(key, ttlSeconds, loader);
+    }
+
+    /**
+     * Write a value in the format {@link #get} expects
+     */
+    public void put(String key, Object value, long ttlSeconds) {
+        long ttl = jitter(ttlSeconds);
+        if (logicalExpiry) {
+            // The physical TTL adds one more period during which the stale value may be served
+            CacheEnvelope envelope = new CacheEnvelope(value, System.currentTimeMillis() + ttl * 1000);
+            redisTemplate.opsForValue().set(key, envelope, ttl + ttlSeconds, TimeUnit.SECONDS);
+        } else {
+            redisTemplate.opsForValue().set(key, value, ttl, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Base TTL plus up to ttl-jitter of it at random
+     */
+    public long jitter(long ttlSeconds) {
+        long spread = (long) (ttlSeconds * ttlJitter);
+        return spread > 0 ? ttlSeconds + ThreadLocalRandom.current().nextLong(spread + 1) : ttlSeconds;
+    }
+
+    private Object loadOnce(String key, long ttlSeconds, Supplier<?> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            Object value = loadWithLock(key, ttlSeconds, loader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object loadWithLock(String key, long ttlSeconds, Supplier<?> loader) {
+        String lockKey = LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + lockWaitMs;
+
+        while (true) {
+            if (tryLock(lockKey, token)) {
+                try {
+                    // Another node may have filled the key while we waited
+                    Object cached = unwrap(redisTemplate.opsForValue().get(key));
+                    if (cached != null) {
+                        return cached;
+                    }
+                    Object value = loader.get();
+                    put(key, value, ttlSeconds);
+                    return value;
+                } finally {
+                    unlock(lockKey, token);
+                }
+            }
+
+            Object cached = unwrap(redisTemplate.opsForValue().get(key));
+            if (cached != null) {
+                return cached;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                // The holder is slow or gone; serve this caller rather than fail it
+                long now = System.currentTimeMillis();
+                if (now - lastWarnMillis >= 1000) {
+                    lastWarnMillis = now;
+                    log.warn("Timed out waiting for cache lock {}, loading without it", lockKey);
+                }
+                return loader.get();
+            }
+            try {
+                Thread.sleep(LOCK_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for cache lock", e);
+            }
+        }
+    }
+
+    private void refreshAsync(String key, long ttlSeconds, Supplier<?> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        refresher.execute(() -> {
+            String lockKey = LOCK_PREFIX + key;
+            String token = UUID.randomUUID().toString();
+            try {
+                // Another node already refreshing is fine, keep serving the stale value
+                if (tryLock(lockKey, token)) {
+                    try {
+                        put(key, loader.get(), ttlSeconds);
+                    } finally {
+                        unlock(lockKey, token);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Failed to refresh cache entry {}", key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(lockKey, token, lockTtlMs, TimeUnit.MILLISECONDS));
+    }
+
+    private void unlock(String lockKey, String token) {
+        stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+    }
+
+    private static Object unwrap(Object cached) {
+        return cached instanceof CacheEnvelope ? ((CacheEnvelope) cached).getValue() : cached;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+}
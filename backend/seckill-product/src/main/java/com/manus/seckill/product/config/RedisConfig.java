@@ -0,0 +1,54 @@
+package com.manus.seckill.product.config;
+
+import com.manus.seckill.product.cache.CompactRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+@Configuration
+public class RedisConfig {
+
+    /**
+     * compact: CompactRedisSerializer; jdk: the previous JDK serialization, for rollback
+     */
+    @Value("${product.redis.value-format:compact}")
+    private String valueFormat;
+
+    /**
+     * Decode JDK-serialized values while they are still in Redis
+     */
+    @Value("${product.redis.read-legacy:true}")
+    private boolean readLegacy;
+
+    /**
+     * Replaces the auto-configured template, which JDK-serializes keys and values alike
+     */
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisSerializer<Object> valueSerializer = "jdk".equals(valueFormat)
+                ? new JdkSerializationRedisSerializer()
+                : new CompactRedisSerializer(readLegacy);
+
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setHashKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
+        return template;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+}
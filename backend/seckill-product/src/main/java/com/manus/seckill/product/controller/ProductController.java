@@ -1,14 +1,14 @@
 package com.manus.seckill.product.controller;
 
 import com.manus.seckill.product.common.Result;
+import com.manus.seckill.product.dto.PageDTO;
 import com.manus.seckill.product.dto.ProductDTO;
 import com.manus.seckill.product.entity.Product;
 import com.manus.seckill.product.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @Slf4j
 @RestController
@@ -29,11 +29,20 @@ public class ProductController {
         }
     }
 
+    /**
+     * One page of products; pass the previous page's nextCursor as cursor.
+     * A page whose ETag matches If-None-Match is answered with 304 and no body.
+     */
     @GetMapping("/list")
-    public Result<List<ProductDTO>> getAllProducts() {
+    public Result<PageDTO<ProductDTO>> getProductPage(@RequestParam(required = false) Long cursor,
+                                                      @RequestParam(required = false) Integer size,
+                                                      WebRequest request) {
         try {
-            List<ProductDTO> products = productService.getAllProducts();
-            return Result.success(products);
+            PageDTO<ProductDTO> page = productService.getProductPage(cursor, size);
+            if (request.checkNotModified(page.getEtag())) {
+                return null;
+            }
+            return Result.success(page);
         } catch (Exception e) {
             log.error("Failed to get products", e);
             return Result.error(e.getMessage());
@@ -1,14 +1,14 @@
 package com.manus.seckill.product.controller;
 
 import com.manus.seckill.product.common.Result;
+import com.manus.seckill.product.dto.PageDTO;
 import com.manus.seckill.product.dto.SeckillActivityDTO;
 import com.manus.seckill.product.entity.SeckillActivity;
 import com.manus.seckill.product.service.SeckillActivityService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @Slf4j
 @RestController
@@ -29,11 +29,20 @@ public class SeckillActivityController {
         }
     }
 
+    /**
+     * One page of active activities; pass the previous page's nextCursor as cursor.
+     * A page whose ETag matches If-None-Match is answered with 304 and no body.
+     */
     @GetMapping("/list")
-    public Result<List<SeckillActivityDTO>> getActiveActivities() {
+    public Result<PageDTO<SeckillActivityDTO>> getActiveActivityPage(@RequestParam(required = false) Long cursor,
+                                                                     @RequestParam(required = false) Integer size,
+                                                                     WebRequest request) {
         try {
-            List<SeckillActivityDTO> activities = seckillActivityService.getActiveActivities();
-            return Result.success(activities);
+            PageDTO<SeckillActivityDTO> page = seckillActivityService.getActiveActivityPage(cursor, size);
+            if (request.checkNotModified(page.getEtag())) {
+                return null;
+            }
+            return Result.success(page);
         } catch (Exception e) {
             log.error("Failed to get active activities", e);
             return Result.error(e.getMessage());
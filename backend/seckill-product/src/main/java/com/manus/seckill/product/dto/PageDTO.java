@@ -0,0 +1,32 @@
+package com.manus.seckill.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. nextCursor is the id to pass as
+ * cursor for the following page, null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<T> items;
+
+    private Long nextCursor;
+
+    /**
+     * Digest of the page content, sent as the ETag header rather than in the body
+     */
+    @JsonIgnore
+    private String etag;
+
+}
@@ -4,13 +4,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class SeckillActivityDTO {
+public class SeckillActivityDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Long id;
 
@@ -25,6 +25,11 @@ public class SeckillActivity {
 
     private Integer seckillStock;
 
+    /**
+     * Set when the ended activity is reconciled; seckillStock keeps the configured total
+     */
+    private Integer remainingStock;
+
     private LocalDateTime startTime;
 
     private LocalDateTime endTime;
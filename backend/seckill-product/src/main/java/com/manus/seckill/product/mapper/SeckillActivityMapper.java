@@ -3,8 +3,37 @@ package com.manus.seckill.product.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.manus.seckill.product.entity.SeckillActivity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
 public interface SeckillActivityMapper extends BaseMapper<SeckillActivity> {
 
+    /**
+     * Orders already taken, so reloading stock mid-sale does not hand them out again
+     */
+    @Select("SELECT COUNT(*) FROM t_seckill_order WHERE activity_id = #{activityId}")
+    long countOrders(@Param("activityId") Long activityId);
+
+    /**
+     * One keyset page of participants, ordered by user id
+     */
+    @Select("SELECT user_id FROM t_seckill_order WHERE activity_id = #{activityId} AND user_id > #{afterUserId} "
+            + "ORDER BY user_id LIMIT #{limit}")
+    List<Long> selectParticipants(@Param("activityId") Long activityId,
+                                  @Param("afterUserId") Long afterUserId,
+                                  @Param("limit") int limit);
+
+    /**
+     * Record the stock left in Redis and close the activity, guarded by version
+     */
+    @Update("UPDATE t_seckill_activity SET remaining_stock = #{remainingStock}, status = -1, version = version + 1 "
+            + "WHERE id = #{id} AND version = #{version}")
+    int reconcileStock(@Param("id") Long id,
+                       @Param("remainingStock") int remainingStock,
+                       @Param("version") Integer version);
+
 }
@@ -1,10 +1,9 @@
 package com.manus.seckill.product.service;
 
+import com.manus.seckill.product.dto.PageDTO;
 import com.manus.seckill.product.dto.ProductDTO;
 import com.manus.seckill.product.entity.Product;
 
-import java.util.List;
-
 public interface ProductService {
 
     /**
@@ -13,9 +12,9 @@ public interface ProductService {
     ProductDTO getProductById(Long id);
 
     /**
-     * Get all products
+     * Get one page of on-sale products ordered by id, starting after cursor
      */
-    List<ProductDTO> getAllProducts();
+    PageDTO<ProductDTO> getProductPage(Long cursor, Integer size);
 
     /**
      * Create product
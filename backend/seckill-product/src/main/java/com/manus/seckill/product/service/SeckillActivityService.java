@@ -1,10 +1,9 @@
 package com.manus.seckill.product.service;
 
+import com.manus.seckill.product.dto.PageDTO;
 import com.manus.seckill.product.dto.SeckillActivityDTO;
 import com.manus.seckill.product.entity.SeckillActivity;
 
-import java.util.List;
-
 public interface SeckillActivityService {
 
     /**
@@ -13,9 +12,9 @@ public interface SeckillActivityService {
     SeckillActivityDTO getActivityById(Long id);
 
     /**
-     * Get all active seckill activities
+     * Get one page of active seckill activities ordered by id, starting after cursor
      */
-    List<SeckillActivityDTO> getActiveActivities();
+    PageDTO<SeckillActivityDTO> getActiveActivityPage(Long cursor, Integer size);
 
     /**
      * Create seckill activity
@@ -0,0 +1,43 @@
+package com.manus.seckill.product.service.impl;
+
+import com.manus.seckill.product.cache.CompactRedisSerializer;
+import com.manus.seckill.product.dto.PageDTO;
+import org.springframework.util.DigestUtils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset page helpers shared by the product and activity listings
+ */
+final class Pages {
+
+    static final int DEFAULT_SIZE = 20;
+    static final int MAX_SIZE = 100;
+
+    private static final CompactRedisSerializer CODEC = new CompactRedisSerializer(false);
+
+    private Pages() {
+    }
+
+    /**
+     * Requested size clamped to 1..MAX_SIZE, so clients cannot multiply page cache keys
+     */
+    static int size(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    /**
+     * Page of at most size items ordered by id; a full page links to the next one
+     */
+    static <T> PageDTO<T> of(List<T> items, int size, Function<T, Long> id) {
+        Long nextCursor = items.size() == size ? id.apply(items.get(items.size() - 1)) : null;
+        // The encoded items cover every field a client sees, nextCursor is derived from them
+        String etag = DigestUtils.md5DigestAsHex(CODEC.serialize(items));
+        return new PageDTO<>(items, nextCursor, etag);
+    }
+
+}
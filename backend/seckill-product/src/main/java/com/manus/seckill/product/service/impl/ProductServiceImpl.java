@@ -1,13 +1,22 @@
 package com.manus.seckill.product.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.product.cache.CacheMetrics;
+import com.manus.seckill.product.cache.CacheMetrics.Tier;
+import com.manus.seckill.product.cache.IdExistenceFilter;
+import com.manus.seckill.product.cache.NearCache;
+import com.manus.seckill.product.cache.SingleFlightCache;
+import com.manus.seckill.product.dto.PageDTO;
 import com.manus.seckill.product.dto.ProductDTO;
 import com.manus.seckill.product.entity.Product;
 import com.manus.seckill.product.mapper.ProductMapper;
 import com.manus.seckill.product.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.support.NullValue;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -24,57 +33,119 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private NearCache nearCache;
+
+    @Autowired
+    private SingleFlightCache singleFlightCache;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
+    @Value("${product.cache.null-ttl-seconds:60}")
+    private long nullTtlSeconds;
+
     private static final String PRODUCT_CACHE_KEY = "product:";
-    private static final String PRODUCT_LIST_CACHE_KEY = "product:list";
+    private static final String PRODUCT_PAGE_CACHE_KEY = "product:page:";
+    private static final String PRODUCT_LIST_VERSION_KEY = "product:list:version";
     private static final long CACHE_EXPIRATION = 3600; // 1 hour
 
     @Override
     public ProductDTO getProductById(Long id) {
-        // Try to get from cache first
+        // Ids that never existed stop here, before any cache or database access
+        if (!idExistenceFilter.mightContainProduct(id)) {
+            cacheMetrics.product(Tier.FILTERED);
+            throw new RuntimeException("Product not found");
+        }
+
+        // In-process tier first, then Redis
         String cacheKey = PRODUCT_CACHE_KEY + id;
-        ProductDTO cached = (ProductDTO) redisTemplate.opsForValue().get(cacheKey);
+        ProductDTO local = nearCache.get(cacheKey);
+        if (local != null) {
+            cacheMetrics.product(Tier.NEAR);
+            return local;
+        }
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        if (cached instanceof NullValue) {
+            cacheMetrics.product(Tier.NEGATIVE);
+            throw new RuntimeException("Product not found");
+        }
         if (cached != null) {
-            return cached;
+            cacheMetrics.product(Tier.REDIS);
+            nearCache.put(cacheKey, cached);
+            return (ProductDTO) cached;
         }
 
         // Get from database
+        cacheMetrics.product(Tier.DATABASE);
         Product product = productMapper.selectById(id);
         if (product == null) {
+            // Remember the miss briefly so repeated lookups do not reach MySQL
+            redisTemplate.opsForValue().set(cacheKey, NullValue.INSTANCE, nullTtlSeconds, TimeUnit.SECONDS);
             throw new RuntimeException("Product not found");
         }
 
         // Convert to DTO and cache
         ProductDTO dto = convertToDTO(product);
-        redisTemplate.opsForValue().set(cacheKey, dto, CACHE_EXPIRATION, TimeUnit.SECONDS);
+        redisTemplate.opsForValue().set(cacheKey, dto, singleFlightCache.jitter(CACHE_EXPIRATION), TimeUnit.SECONDS);
+        nearCache.put(cacheKey, dto);
 
         return dto;
     }
 
     @Override
-    public List<ProductDTO> getAllProducts() {
-        // Try to get from cache first
-        List<ProductDTO> cached = (List<ProductDTO>) redisTemplate.opsForValue().get(PRODUCT_LIST_CACHE_KEY);
-        if (cached != null) {
-            return cached;
-        }
+    public PageDTO<ProductDTO> getProductPage(Long cursor, Integer size) {
+        int pageSize = Pages.size(size);
+        // Pages are cached per list version; any product write moves to a new version
+        String cacheKey = pageKey(listVersion(), cursor, pageSize);
+        // One loader per node and one across nodes when the page is missing or stale
+        return singleFlightCache.get(cacheKey, CACHE_EXPIRATION, () -> loadProductPage(cursor, pageSize));
+    }
 
-        // Get from database
-        List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>().eq(Product::getStatus, 1));
-        List<ProductDTO> dtos = products.stream()
-                .map(this::convertToDTO)
+    /**
+     * Keyset page over idx_status: the secondary index is ordered by (status, id)
+     */
+    private PageDTO<ProductDTO> loadProductPage(Long cursor, int size) {
+        List<ProductDTO> products = productMapper.selectList(new LambdaQueryWrapper<Product>()
+                        .eq(Product::getStatus, 1)
+                        .gt(cursor != null, Product::getId, cursor)
+                        .orderByAsc(Product::getId)
+                        .last("LIMIT " + size))
+                .stream()
+                .map(ProductServiceImpl::convertToDTO)
                 .collect(Collectors.toList());
+        return Pages.of(products, size, ProductDTO::getId);
+    }
+
+    private static String pageKey(String version, Long cursor, int size) {
+        return PRODUCT_PAGE_CACHE_KEY + version + ":" + (cursor != null ? cursor : 0) + ":" + size;
+    }
 
-        // Cache the list
-        redisTemplate.opsForValue().set(PRODUCT_LIST_CACHE_KEY, dtos, CACHE_EXPIRATION, TimeUnit.SECONDS);
+    private String listVersion() {
+        String version = stringRedisTemplate.opsForValue().get(PRODUCT_LIST_VERSION_KEY);
+        return version != null ? version : "0";
+    }
 
-        return dtos;
+    /**
+     * Orphan every cached page at once; they expire on their own TTL
+     */
+    private void invalidatePages() {
+        stringRedisTemplate.opsForValue().increment(PRODUCT_LIST_VERSION_KEY);
     }
 
     @Override
     public void createProduct(Product product) {
         productMapper.insert(product);
-        // Invalidate cache
-        redisTemplate.delete(PRODUCT_LIST_CACHE_KEY);
+        idExistenceFilter.addProduct(product.getId());
+        // Invalidate cache, including a negative entry for this id
+        redisTemplate.delete(PRODUCT_CACHE_KEY + product.getId());
+        invalidatePages();
         log.info("Product created: {}", product.getId());
     }
 
@@ -84,7 +155,8 @@ public class ProductServiceImpl implements ProductService {
         // Invalidate cache
         String cacheKey = PRODUCT_CACHE_KEY + product.getId();
         redisTemplate.delete(cacheKey);
-        redisTemplate.delete(PRODUCT_LIST_CACHE_KEY);
+        nearCache.evict(cacheKey);
+        invalidatePages();
         log.info("Product updated: {}", product.getId());
     }
 
@@ -94,26 +166,31 @@ public class ProductServiceImpl implements ProductService {
         // Invalidate cache
         String cacheKey = PRODUCT_CACHE_KEY + id;
         redisTemplate.delete(cacheKey);
-        redisTemplate.delete(PRODUCT_LIST_CACHE_KEY);
+        nearCache.evict(cacheKey);
+        invalidatePages();
         log.info("Product deleted: {}", id);
     }
 
     @Override
     public void warmUpCache() {
-        List<Product> products = productMapper.selectList(new LambdaQueryWrapper<Product>().eq(Product::getStatus, 1));
-        for (Product product : products) {
-            String cacheKey = PRODUCT_CACHE_KEY + product.getId();
-            ProductDTO dto = convertToDTO(product);
-            redisTemplate.opsForValue().set(cacheKey, dto, CACHE_EXPIRATION, TimeUnit.SECONDS);
-        }
-        List<ProductDTO> dtos = products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-        redisTemplate.opsForValue().set(PRODUCT_LIST_CACHE_KEY, dtos, CACHE_EXPIRATION, TimeUnit.SECONDS);
-        log.info("Product cache warmed up");
+        // Walk the catalogue page by page, caching every page and every product on it
+        String version = listVersion();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            PageDTO<ProductDTO> page = loadProductPage(cursor, Pages.DEFAULT_SIZE);
+            for (ProductDTO dto : page.getItems()) {
+                String cacheKey = PRODUCT_CACHE_KEY + dto.getId();
+                redisTemplate.opsForValue().set(cacheKey, dto, singleFlightCache.jitter(CACHE_EXPIRATION), TimeUnit.SECONDS);
+            }
+            singleFlightCache.put(pageKey(version, cursor, Pages.DEFAULT_SIZE), page, CACHE_EXPIRATION);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        log.info("Product cache warmed up, {} pages", pages);
     }
 
-    private ProductDTO convertToDTO(Product product) {
+    static ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -1,6 +1,13 @@
 package com.manus.seckill.product.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.product.cache.CacheMetrics;
+import com.manus.seckill.product.cache.CacheMetrics.Tier;
+import com.manus.seckill.product.cache.IdExistenceFilter;
+import com.manus.seckill.product.cache.NearCache;
+import com.manus.seckill.product.cache.SingleFlightCache;
+import com.manus.seckill.product.dto.PageDTO;
+import com.manus.seckill.product.dto.ProductDTO;
 import com.manus.seckill.product.dto.SeckillActivityDTO;
 import com.manus.seckill.product.entity.Product;
 import com.manus.seckill.product.entity.SeckillActivity;
@@ -9,11 +16,18 @@ import com.manus.seckill.product.mapper.SeckillActivityMapper;
 import com.manus.seckill.product.service.SeckillActivityService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.support.NullValue;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -30,63 +44,122 @@ public class SeckillActivityServiceImpl implements SeckillActivityService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private NearCache nearCache;
+
+    @Autowired
+    private SingleFlightCache singleFlightCache;
+
+    @Autowired
+    private IdExistenceFilter idExistenceFilter;
+
+    @Autowired
+    private CacheMetrics cacheMetrics;
+
+    @Value("${product.cache.null-ttl-seconds:60}")
+    private long nullTtlSeconds;
+
     private static final String ACTIVITY_CACHE_KEY = "seckill:activity:";
-    private static final String ACTIVE_ACTIVITIES_CACHE_KEY = "seckill:activities:active";
+    private static final String PRODUCT_CACHE_KEY = "product:";
+    private static final String ACTIVE_PAGE_CACHE_KEY = "seckill:activities:active:";
+    private static final String ACTIVE_LIST_VERSION_KEY = "seckill:activities:version";
     private static final long CACHE_EXPIRATION = 1800; // 30 minutes
 
     @Override
     public SeckillActivityDTO getActivityById(Long id) {
-        // Try to get from cache first
+        // Ids that never existed stop here, before any cache or database access
+        if (!idExistenceFilter.mightContainActivity(id)) {
+            cacheMetrics.activity(Tier.FILTERED);
+            throw new RuntimeException("Seckill activity not found");
+        }
+
+        // In-process tier first, then Redis
         String cacheKey = ACTIVITY_CACHE_KEY + id;
-        SeckillActivityDTO cached = (SeckillActivityDTO) redisTemplate.opsForValue().get(cacheKey);
+        SeckillActivityDTO local = nearCache.get(cacheKey);
+        if (local != null) {
+            cacheMetrics.activity(Tier.NEAR);
+            return local;
+        }
+        Object cached = redisTemplate.opsForValue().get(cacheKey);
+        if (cached instanceof NullValue) {
+            cacheMetrics.activity(Tier.NEGATIVE);
+            throw new RuntimeException("Seckill activity not found");
+        }
         if (cached != null) {
-            return cached;
+            cacheMetrics.activity(Tier.REDIS);
+            nearCache.put(cacheKey, cached);
+            return (SeckillActivityDTO) cached;
         }
 
         // Get from database
+        cacheMetrics.activity(Tier.DATABASE);
         SeckillActivity activity = seckillActivityMapper.selectById(id);
         if (activity == null) {
+            // Remember the miss briefly so repeated lookups do not reach MySQL
+            redisTemplate.opsForValue().set(cacheKey, NullValue.INSTANCE, nullTtlSeconds, TimeUnit.SECONDS);
             throw new RuntimeException("Seckill activity not found");
         }
 
         // Convert to DTO and cache
-        SeckillActivityDTO dto = convertToDTO(activity);
-        redisTemplate.opsForValue().set(cacheKey, dto, CACHE_EXPIRATION, TimeUnit.SECONDS);
+        SeckillActivityDTO dto = convertToDTOs(Collections.singletonList(activity)).get(0);
+        redisTemplate.opsForValue().set(cacheKey, dto, singleFlightCache.jitter(CACHE_EXPIRATION), TimeUnit.SECONDS);
+        nearCache.put(cacheKey, dto);
 
         return dto;
     }
 
     @Override
-    public List<SeckillActivityDTO> getActiveActivities() {
-        // Try to get from cache first
-        List<SeckillActivityDTO> cached = (List<SeckillActivityDTO>) redisTemplate.opsForValue().get(ACTIVE_ACTIVITIES_CACHE_KEY);
-        if (cached != null) {
-            return cached;
-        }
+    public PageDTO<SeckillActivityDTO> getActiveActivityPage(Long cursor, Integer size) {
+        int pageSize = Pages.size(size);
+        // Pages are cached per list version; any activity write moves to a new version
+        String cacheKey = pageKey(listVersion(), cursor, pageSize);
+        // One loader per node and one across nodes when the page is missing or stale
+        return singleFlightCache.get(cacheKey, CACHE_EXPIRATION, () -> loadActivePage(cursor, pageSize));
+    }
 
-        // Get from database - activities that are active or about to start
+    /**
+     * Activities that are active or about to start, keyset-paged by id
+     */
+    private PageDTO<SeckillActivityDTO> loadActivePage(Long cursor, int size) {
         LocalDateTime now = LocalDateTime.now();
+        // The time range is served by idx_time_range; only the matching rows are sorted by id
         List<SeckillActivity> activities = seckillActivityMapper.selectList(
                 new LambdaQueryWrapper<SeckillActivity>()
                         .le(SeckillActivity::getStartTime, now.plusHours(1))
                         .ge(SeckillActivity::getEndTime, now)
+                        .gt(cursor != null, SeckillActivity::getId, cursor)
+                        .orderByAsc(SeckillActivity::getId)
+                        .last("LIMIT " + size)
         );
+        return Pages.of(convertToDTOs(activities), size, SeckillActivityDTO::getId);
+    }
 
-        List<SeckillActivityDTO> dtos = activities.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    private static String pageKey(String version, Long cursor, int size) {
+        return ACTIVE_PAGE_CACHE_KEY + version + ":" + (cursor != null ? cursor : 0) + ":" + size;
+    }
 
-        // Cache the list
-        redisTemplate.opsForValue().set(ACTIVE_ACTIVITIES_CACHE_KEY, dtos, CACHE_EXPIRATION, TimeUnit.SECONDS);
+    private String listVersion() {
+        String version = stringRedisTemplate.opsForValue().get(ACTIVE_LIST_VERSION_KEY);
+        return version != null ? version : "0";
+    }
 
-        return dtos;
+    /**
+     * Orphan every cached page at once; they expire on their own TTL. Returns the new version.
+     */
+    private String invalidatePages() {
+        return String.valueOf(stringRedisTemplate.opsForValue().increment(ACTIVE_LIST_VERSION_KEY));
     }
 
     @Override
     public void createActivity(SeckillActivity activity) {
         seckillActivityMapper.insert(activity);
-        // Invalidate cache
-        redisTemplate.delete(ACTIVE_ACTIVITIES_CACHE_KEY);
+        idExistenceFilter.addActivity(activity.getId());
+        // Invalidate cache, including a negative entry for this id
+        redisTemplate.delete(ACTIVITY_CACHE_KEY + activity.getId());
+        invalidatePages();
         log.info("Seckill activity created: {}", activity.getId());
     }
 
@@ -96,7 +169,8 @@ public class SeckillActivityServiceImpl implements SeckillActivityService {
         // Invalidate cache
         String cacheKey = ACTIVITY_CACHE_KEY + activity.getId();
         redisTemplate.delete(cacheKey);
-        redisTemplate.delete(ACTIVE_ACTIVITIES_CACHE_KEY);
+        nearCache.evict(cacheKey);
+        invalidatePages();
         log.info("Seckill activity updated: {}", activity.getId());
     }
 
@@ -106,33 +180,85 @@ public class SeckillActivityServiceImpl implements SeckillActivityService {
         // Invalidate cache
         String cacheKey = ACTIVITY_CACHE_KEY + id;
         redisTemplate.delete(cacheKey);
-        redisTemplate.delete(ACTIVE_ACTIVITIES_CACHE_KEY);
+        nearCache.evict(cacheKey);
+        invalidatePages();
         log.info("Seckill activity deleted: {}", id);
     }
 
     @Override
     public void warmUpCache() {
-        LocalDateTime now = LocalDateTime.now();
-        List<SeckillActivity> activities = seckillActivityMapper.selectList(
-                new LambdaQueryWrapper<SeckillActivity>()
-                        .le(SeckillActivity::getStartTime, now.plusHours(1))
-                        .ge(SeckillActivity::getEndTime, now)
-        );
+        // Start a new version so newly opened activities show up, then fill it page by page
+        String version = invalidatePages();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            PageDTO<SeckillActivityDTO> page = loadActivePage(cursor, Pages.DEFAULT_SIZE);
+            for (SeckillActivityDTO dto : page.getItems()) {
+                String cacheKey = ACTIVITY_CACHE_KEY + dto.getId();
+                redisTemplate.opsForValue().set(cacheKey, dto, singleFlightCache.jitter(CACHE_EXPIRATION), TimeUnit.SECONDS);
+            }
+            singleFlightCache.put(pageKey(version, cursor, Pages.DEFAULT_SIZE), page, CACHE_EXPIRATION);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        log.info("Seckill activity cache warmed up, {} pages", pages);
+    }
+
+    /**
+     * Build DTOs with one product lookup for the whole batch: names come from
+     * the product cache where present and one selectBatchIds covers the rest
+     */
+    private List<SeckillActivityDTO> convertToDTOs(List<SeckillActivity> activities) {
+        List<Long> productIds = activities.stream()
+                .map(SeckillActivity::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, String> productNames = productNames(productIds);
+        return activities.stream()
+                .map(activity -> convertToDTO(activity, productNames.get(activity.getProductId())))
+                .collect(Collectors.toList());
+    }
 
-        for (SeckillActivity activity : activities) {
-            String cacheKey = ACTIVITY_CACHE_KEY + activity.getId();
-            SeckillActivityDTO dto = convertToDTO(activity);
-            redisTemplate.opsForValue().set(cacheKey, dto, CACHE_EXPIRATION, TimeUnit.SECONDS);
+    private Map<Long, String> productNames(List<Long> productIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return names;
         }
 
-        List<SeckillActivityDTO> dtos = activities.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-        redisTemplate.opsForValue().set(ACTIVE_ACTIVITIES_CACHE_KEY, dtos, CACHE_EXPIRATION, TimeUnit.SECONDS);
-        log.info("Seckill activity cache warmed up");
+        List<Long> missing = new ArrayList<>();
+        List<String> redisKeys = new ArrayList<>();
+        List<Long> redisIds = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductDTO local = nearCache.get(PRODUCT_CACHE_KEY + productId);
+            if (local != null) {
+                names.put(productId, local.getName());
+            } else {
+                redisKeys.add(PRODUCT_CACHE_KEY + productId);
+                redisIds.add(productId);
+            }
+        }
+
+        if (!redisKeys.isEmpty()) {
+            List<Object> cached = redisTemplate.opsForValue().multiGet(redisKeys);
+            for (int i = 0; i < redisIds.size(); i++) {
+                Object value = cached == null ? null : cached.get(i);
+                if (value instanceof ProductDTO) {
+                    names.put(redisIds.get(i), ((ProductDTO) value).getName());
+                } else {
+                    missing.add(redisIds.get(i));
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (Product product : productMapper.selectBatchIds(missing)) {
+                names.put(product.getId(), product.getName());
+            }
+        }
+        return names;
     }
 
-    private SeckillActivityDTO convertToDTO(SeckillActivity activity) {
+    static SeckillActivityDTO convertToDTO(SeckillActivity activity, String productName) {
         SeckillActivityDTO dto = new SeckillActivityDTO();
         dto.setId(activity.getId());
         dto.setProductId(activity.getProductId());
@@ -141,13 +267,7 @@ public class SeckillActivityServiceImpl implements SeckillActivityService {
         dto.setStartTime(activity.getStartTime());
         dto.setEndTime(activity.getEndTime());
         dto.setStatus(activity.getStatus());
-
-        // Get product name
-        Product product = productMapper.selectById(activity.getProductId());
-        if (product != null) {
-            dto.setProductName(product.getName());
-        }
-
+        dto.setProductName(productName);
         return dto;
     }
 
@@ -0,0 +1,294 @@
+package com.manus.seckill.product.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.product.dto.ProductDTO;
+import com.manus.seckill.product.dto.SeckillActivityDTO;
+import com.manus.seckill.product.entity.Product;
+import com.manus.seckill.product.entity.SeckillActivity;
+import com.manus.seckill.product.mapper.ProductMapper;
+import com.manus.seckill.product.mapper.SeckillActivityMapper;
+import com.manus.seckill.product.service.SeckillActivityService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads every activity into Redis a lead time before it starts: stock
+ * counter, participant set, meta hash, activity DTO and product DTO, one
+ * pipeline per batch of activities. After an activity ends, and its unpaid
+ * orders have timed out, the stock left in Redis is recorded as
+ * remaining_stock in t_seckill_activity.
+ * <p>
+ * Every write is idempotent (stock with SET NX), so several product nodes
+ * may run the scheduler at the same time.
+ */
+@Slf4j
+@Component
+public class SeckillPreWarmScheduler {
+
+    @Autowired
+    private SeckillActivityMapper seckillActivityMapper;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Autowired
+    private SeckillActivityService seckillActivityService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${seckill.prewarm.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seckill.prewarm.lead-seconds:600}")
+    private long leadSeconds;
+
+    @Value("${seckill.prewarm.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Must exceed order.timeout.pay-timeout-ms: cancelled orders return their unit to
+     * seckill:stock, and a unit returned after reconcile would never reach the database
+     */
+    @Value("${seckill.prewarm.reconcile-grace-seconds:1860}")
+    private long reconcileGraceSeconds;
+
+    @Value("${seckill.prewarm.key-retention-seconds:86400}")
+    private long keyRetentionSeconds;
+
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String SECKILL_USERS_PREFIX = "seckill:users:";
+    private static final String SECKILL_META_PREFIX = "seckill:meta:";
+    private static final String ACTIVITY_CACHE_KEY = "seckill:activity:";
+    private static final String PRODUCT_CACHE_KEY = "product:";
+    private static final long CACHE_EXPIRATION = 3600;
+    private static final int PARTICIPANT_PAGE_SIZE = 1000;
+    private static final int STATUS_ENDED = -1;
+
+    /**
+     * Activity id to the start time it was warmed for; a rescheduled activity is warmed again
+     */
+    private final Map<Long, LocalDateTime> warmed = new ConcurrentHashMap<>();
+
+    @Scheduled(initialDelayString = "${seckill.prewarm.initial-delay-ms:5000}",
+            fixedDelayString = "${seckill.prewarm.interval-ms:15000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            preWarm();
+        } catch (Exception e) {
+            log.error("Seckill pre-warm failed", e);
+        }
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Seckill stock reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Activities starting within the lead time, or already running, that are not warmed yet
+     */
+    void preWarm() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        while (true) {
+            // Range on start_time is served by idx_time_range
+            List<SeckillActivity> page = seckillActivityMapper.selectList(
+                    new LambdaQueryWrapper<SeckillActivity>()
+                            .le(SeckillActivity::getStartTime, now.plusSeconds(leadSeconds))
+                            .gt(SeckillActivity::getEndTime, now)
+                            .ne(SeckillActivity::getStatus, STATUS_ENDED)
+                            .gt(SeckillActivity::getId, afterId)
+                            .orderByAsc(SeckillActivity::getId)
+                            .last("LIMIT " + batchSize));
+            if (page.isEmpty()) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+
+            List<SeckillActivity> pending = page.stream()
+                    .filter(a -> !a.getStartTime().equals(warmed.get(a.getId())))
+                    .collect(Collectors.toList());
+            if (!pending.isEmpty()) {
+                warm(pending, now);
+            }
+            if (page.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void warm(List<SeckillActivity> activities, LocalDateTime now) {
+        List<Long> productIds = activities.stream()
+                .map(SeckillActivity::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Product> products = productMapper.selectBatchIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Long, Long> remainingStock = new HashMap<>();
+        for (SeckillActivity activity : activities) {
+            long taken = seckillActivityMapper.countOrders(activity.getId());
+            remainingStock.put(activity.getId(), Math.max(0, activity.getSeckillStock() - taken));
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (SeckillActivity activity : activities) {
+                Long id = activity.getId();
+                Expiration expiration = Expiration.seconds(ttlUntilEnd(activity, now));
+                // NX: a running sale's counter is never reset
+                connection.stringCommands().set(bytes(SECKILL_STOCK_PREFIX + id),
+                        bytes(String.valueOf(remainingStock.get(id))),
+                        expiration, RedisStringCommands.SetOption.ifAbsent());
+
+                byte[] metaKey = bytes(SECKILL_META_PREFIX + id);
+                connection.hashCommands().hMSet(metaKey, meta(activity));
+                connection.keyCommands().expire(metaKey, expiration.getExpirationTimeInSeconds());
+            }
+            return null;
+        });
+
+        for (SeckillActivity activity : activities) {
+            loadParticipants(activity, now);
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (SeckillActivity activity : activities) {
+                    Product product = products.get(activity.getProductId());
+                    SeckillActivityDTO dto = SeckillActivityServiceImpl.convertToDTO(activity,
+                            product != null ? product.getName() : null);
+                    // Cover the whole sale so its first and last seconds both hit the cache
+                    long ttl = Math.max(CACHE_EXPIRATION, ttlUntilEnd(activity, now));
+                    ops.opsForValue().set(ACTIVITY_CACHE_KEY + activity.getId(), dto, ttl, TimeUnit.SECONDS);
+                    if (product != null) {
+                        ProductDTO productDTO = ProductServiceImpl.convertToDTO(product);
+                        ops.opsForValue().set(PRODUCT_CACHE_KEY + product.getId(), productDTO, ttl, TimeUnit.SECONDS);
+                    }
+                }
+                return null;
+            }
+        });
+
+        // Rebuild the active list so it already contains these activities when they open
+        seckillActivityService.warmUpCache();
+
+        for (SeckillActivity activity : activities) {
+            warmed.put(activity.getId(), activity.getStartTime());
+            log.info("Pre-warmed seckill activity {} starting at {}, stock {}",
+                    activity.getId(), activity.getStartTime(), remainingStock.get(activity.getId()));
+        }
+    }
+
+    private void loadParticipants(SeckillActivity activity, LocalDateTime now) {
+        String key = SECKILL_USERS_PREFIX + activity.getId();
+        long ttl = ttlUntilEnd(activity, now);
+        long afterUserId = 0;
+        while (true) {
+            List<Long> userIds = seckillActivityMapper.selectParticipants(activity.getId(), afterUserId,
+                    PARTICIPANT_PAGE_SIZE);
+            if (userIds.isEmpty()) {
+                return;
+            }
+            afterUserId = userIds.get(userIds.size() - 1);
+
+            byte[][] members = userIds.stream().map(u -> bytes(String.valueOf(u))).toArray(byte[][]::new);
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.setCommands().sAdd(bytes(key), members);
+                connection.keyCommands().expire(bytes(key), ttl);
+                return null;
+            });
+            if (userIds.size() < PARTICIPANT_PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ended activities not reconciled yet. The grace period lets queued orders drain
+     * and unpaid orders be cancelled first.
+     */
+    void reconcile() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(reconcileGraceSeconds);
+        List<SeckillActivity> ended = seckillActivityMapper.selectList(
+                new LambdaQueryWrapper<SeckillActivity>()
+                        .le(SeckillActivity::getStartTime, cutoff)
+                        .le(SeckillActivity::getEndTime, cutoff)
+                        .ne(SeckillActivity::getStatus, STATUS_ENDED)
+                        .last("LIMIT " + batchSize));
+        if (ended.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = ended.stream()
+                .map(a -> SECKILL_STOCK_PREFIX + a.getId())
+                .collect(Collectors.toList());
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+
+        for (int i = 0; i < ended.size(); i++) {
+            SeckillActivity activity = ended.get(i);
+            String value = values == null ? null : values.get(i);
+            // Never loaded: nothing was sold, keep the configured stock
+            int remaining = value == null ? activity.getSeckillStock() : Math.max(0, Integer.parseInt(value));
+            if (seckillActivityMapper.reconcileStock(activity.getId(), remaining, activity.getVersion()) == 1) {
+                log.info("Reconciled seckill activity {}: {} of {} left",
+                        activity.getId(), remaining, activity.getSeckillStock());
+            }
+            warmed.remove(activity.getId());
+        }
+    }
+
+    private Map<byte[], byte[]> meta(SeckillActivity activity) {
+        Map<byte[], byte[]> meta = new HashMap<>();
+        meta.put(bytes("productId"), bytes(String.valueOf(activity.getProductId())));
+        meta.put(bytes("seckillPrice"), bytes(activity.getSeckillPrice().toPlainString()));
+        meta.put(bytes("startTime"), bytes(String.valueOf(epochMillis(activity.getStartTime()))));
+        meta.put(bytes("endTime"), bytes(String.valueOf(epochMillis(activity.getEndTime()))));
+        return meta;
+    }
+
+    private long ttlUntilEnd(SeckillActivity activity, LocalDateTime now) {
+        return Math.max(0, Duration.between(now, activity.getEndTime()).getSeconds()) + keyRetentionSeconds;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
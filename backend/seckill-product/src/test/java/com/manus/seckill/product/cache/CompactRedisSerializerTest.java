@@ -0,0 +1,126 @@
+package com.manus.seckill.product.cache;
+
+import com.manus.seckill.product.dto.PageDTO;
+import com.manus.seckill.product.dto.ProductDTO;
+import com.manus.seckill.product.dto.SeckillActivityDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(true);
+
+    @Test
+    void roundTripsProduct() {
+        ProductDTO product = new ProductDTO(1234567890123L, "手机 Pro", new BigDecimal("5999.90"), 300,
+                "限量发售", 1);
+
+        assertEquals(product, roundTrip(product));
+    }
+
+    @Test
+    void roundTripsProductWithNullFields() {
+        ProductDTO product = new ProductDTO();
+        product.setId(7L);
+        product.setStock(-3);
+
+        ProductDTO decoded = (ProductDTO) roundTrip(product);
+
+        assertEquals(product, decoded);
+        assertNull(decoded.getName());
+        assertNull(decoded.getPrice());
+    }
+
+    @Test
+    void roundTripsActivity() {
+        SeckillActivityDTO activity = new SeckillActivityDTO(42L, 1234567890123L, "手机 Pro",
+                new BigDecimal("0.01"), 100,
+                LocalDateTime.of(2024, 11, 11, 0, 0, 0),
+                LocalDateTime.of(2024, 11, 11, 0, 30, 0, 123_000_000), 1);
+
+        assertEquals(activity, roundTrip(activity));
+    }
+
+    @Test
+    void roundTripsEnvelopeAroundList() {
+        List<Object> products = Arrays.asList(
+                new ProductDTO(1L, "a", new BigDecimal("1"), 1, null, 1),
+                new ProductDTO(2L, "b", new BigDecimal("-2.50"), 0, "", 0));
+        CacheEnvelope envelope = new CacheEnvelope(products, 1_700_000_000_000L);
+
+        assertEquals(envelope, roundTrip(envelope));
+    }
+
+    @Test
+    void roundTripsPageWithoutCursor() {
+        PageDTO<Object> page = new PageDTO<>(List.of(new ProductDTO(3L, "c", null, null, null, null)), null, null);
+
+        assertEquals(page, roundTrip(page));
+    }
+
+    @Test
+    void roundTripsNullValueAndString() {
+        assertSame(NullValue.INSTANCE, roundTrip(NullValue.INSTANCE));
+        assertEquals("etag-é", roundTrip("etag-é"));
+    }
+
+    @Test
+    void nullIsEmptyBytes() {
+        assertArrayEquals(new byte[0], serializer.serialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+    }
+
+    @Test
+    void readsLegacyJdkBytes() {
+        SeckillActivityDTO activity = new SeckillActivityDTO(9L, 8L, "legacy", new BigDecimal("9.99"), 5,
+                LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 11, 0), 1);
+        CacheEnvelope envelope = new CacheEnvelope(activity, 1_700_000_000_000L);
+        byte[] legacyBytes = new JdkSerializationRedisSerializer().serialize(envelope);
+
+        assertEquals(envelope, serializer.deserialize(legacyBytes));
+    }
+
+    @Test
+    void rejectsLegacyBytesWhenDisabled() {
+        byte[] legacyBytes = new JdkSerializationRedisSerializer().serialize(new ProductDTO());
+
+        assertThrows(SerializationException.class, () -> new CompactRedisSerializer(false).deserialize(legacyBytes));
+    }
+
+    @Test
+    void rejectsTruncatedValue() {
+        byte[] bytes = serializer.serialize(new ProductDTO(1L, "truncated", new BigDecimal("1.00"), 1, null, 1));
+
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 3)));
+    }
+
+    @Test
+    void compactIsSmallerThanJdk() {
+        ProductDTO product = new ProductDTO(1234567890123L, "手机 Pro", new BigDecimal("5999.90"), 300,
+                "限量发售", 1);
+
+        assertTrue(serializer.serialize(product).length
+                < new JdkSerializationRedisSerializer().serialize(product).length);
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+}
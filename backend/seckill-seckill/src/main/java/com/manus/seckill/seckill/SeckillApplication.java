@@ -1,11 +1,14 @@
 package com.manus.seckill.seckill;
 
+import com.manus.seckill.common.SnowflakeIdGenerator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@Import(SnowflakeIdGenerator.class)
 public class SeckillApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,50 @@
+package com.manus.seckill.seckill.common;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets at most permitsPerSecond events of one kind through per second and
+ * counts the rest, so a log line on the request path costs an increment
+ * instead of a formatted event once a drop starts. The count of skipped
+ * events is reported on the next line that is logged.
+ */
+public final class LogSampler {
+
+    private final int permitsPerSecond;
+
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger used = new AtomicInteger();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogSampler(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Whether this event should be logged; callers log only when true
+     */
+    public boolean sample() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = window.get();
+        // Only the thread that moves the window resets the count; a few events at the
+        // boundary may land in either second, which is fine for logging
+        if (second != current && window.compareAndSet(current, second)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= permitsPerSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Events skipped since the previous call
+     */
+    public long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.manus.seckill.seckill.common;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the seckill hot path. Names start with seckill. so they are
+ * published as Prometheus histograms (management.metrics.distribution).
+ * Meters are registered once at startup; recording is a lookup in an
+ * EnumMap and a timer update.
+ */
+@Component
+public class SeckillMetrics {
+
+    /**
+     * Steps of doSeckill. In atomic mode the duplicate check, stock decrement
+     * and stream add run in one script, timed as DEDUCT.
+     */
+    public enum Stage {
+        PATH_CHECK, LOCK_WAIT, DUPLICATE_CHECK, STOCK_DECREMENT, STREAM_ADD, DEDUCT
+    }
+
+    /**
+     * CLOSED: before the activity's start time or after its end time
+     */
+    public enum Outcome {
+        ACCEPTED, SOLD_OUT, INVALID_PATH, DUPLICATE, BUSY, CLOSED, ERROR
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Timer> requests = new EnumMap<>(Outcome.class);
+
+    private Timer pathIssue;
+    private Timer streamLag;
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("seckill.do.stage")
+                    .description("Time spent in one step of doSeckill")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            requests.put(outcome, Timer.builder("seckill.do.requests")
+                    .description("doSeckill calls by outcome")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        pathIssue = Timer.builder("seckill.path.issue")
+                .description("Time to issue a seckill path")
+                .register(meterRegistry);
+        streamLag = Timer.builder("seckill.stream.lag")
+                .description("Age of seckill:stream entries when their batch is persisted")
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("seckill.stream.batch.size")
+                .description("Entries per seckill:stream batch")
+                .register(meterRegistry);
+    }
+
+    public void stage(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void request(Outcome outcome, long startNanos) {
+        requests.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void pathIssued(long startNanos) {
+        pathIssue.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A stream entry id starts with the millisecond it was added
+     */
+    public void streamBatch(int size, long oldestEntryMillis) {
+        batchSize.record(size);
+        streamLag.record(Math.max(0, System.currentTimeMillis() - oldestEntryMillis), TimeUnit.MILLISECONDS);
+    }
+
+}
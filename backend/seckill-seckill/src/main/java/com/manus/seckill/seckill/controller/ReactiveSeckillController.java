@@ -0,0 +1,85 @@
+package com.manus.seckill.seckill.controller;
+
+import com.manus.seckill.seckill.common.Result;
+import com.manus.seckill.seckill.dto.SeckillRequest;
+import com.manus.seckill.seckill.dto.SeckillResult;
+import com.manus.seckill.seckill.service.ReactiveSeckillService;
+import com.manus.seckill.seckill.service.SeckillService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same endpoints and Result contract as {@link SeckillController}, returning
+ * Mono. The request is completed asynchronously when Redis answers, so no
+ * Tomcat thread waits on it and open connections cost a socket, not a thread.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/seckill")
+@ConditionalOnProperty(name = "seckill.web.mode", havingValue = "reactive")
+public class ReactiveSeckillController {
+
+    /**
+     * Set by the gateway after verifying the JWT, never taken from the client
+     */
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    @Autowired
+    private ReactiveSeckillService reactiveSeckillService;
+
+    @Autowired
+    private SeckillService seckillService;
+
+    @GetMapping("/path/{activityId}")
+    public Mono<Result<String>> getSeckillPath(@PathVariable Long activityId,
+                                               @RequestHeader(USER_ID_HEADER) Long userId) {
+        return reactiveSeckillService.getSeckillPath(activityId, userId)
+                .map(Result::success)
+                .onErrorResume(e -> {
+                    log.error("Failed to get seckill path", e);
+                    return Mono.just(Result.error(e.getMessage()));
+                });
+    }
+
+    @PostMapping("/doSeckill/{path}")
+    public Mono<Result<SeckillResult>> doSeckill(@PathVariable String path,
+                                                 @RequestParam Long activityId,
+                                                 @RequestBody SeckillRequest request,
+                                                 @RequestHeader(USER_ID_HEADER) Long userId) {
+        if (!activityId.equals(request.getActivityId())) {
+            return Mono.just(Result.error(400, SeckillController.ACTIVITY_MISMATCH));
+        }
+        return reactiveSeckillService.doSeckill(request.getActivityId(), userId, path)
+                .map(Result::success)
+                .onErrorResume(e -> {
+                    log.error("Failed to execute seckill", e);
+                    return Mono.just(Result.error(e.getMessage()));
+                });
+    }
+
+    @GetMapping("/result/{activityId}")
+    public Mono<Result<SeckillResult>> getSeckillResult(@PathVariable Long activityId,
+                                                        @RequestHeader(USER_ID_HEADER) Long userId) {
+        return reactiveSeckillService.getSeckillResult(activityId, userId)
+                .map(Result::success)
+                .onErrorResume(e -> {
+                    log.error("Failed to get seckill result", e);
+                    return Mono.just(Result.error(e.getMessage()));
+                });
+    }
+
+    /**
+     * SseEmitter already completes asynchronously and holds no thread while open
+     */
+    @GetMapping(value = "/subscribe/{activityId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeSeckillResult(@PathVariable Long activityId,
+                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+        return seckillService.subscribeResult(activityId, userId);
+    }
+
+}
@@ -6,22 +6,31 @@ import com.manus.seckill.seckill.dto.SeckillResult;
 import com.manus.seckill.seckill.service.SeckillService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Slf4j
 @RestController
 @RequestMapping("/seckill")
+@ConditionalOnProperty(name = "seckill.web.mode", havingValue = "blocking", matchIfMissing = true)
 public class SeckillController {
 
+    /**
+     * Set by the gateway after verifying the JWT, never taken from the client
+     */
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    static final String ACTIVITY_MISMATCH = "activityId parameter does not match the request body";
+
     @Autowired
     private SeckillService seckillService;
 
     @GetMapping("/path/{activityId}")
     public Result<String> getSeckillPath(@PathVariable Long activityId,
-                                         @RequestHeader("Authorization") String token) {
+                                         @RequestHeader(USER_ID_HEADER) Long userId) {
         try {
-            // Extract userId from token (simplified, in real scenario use JWT parser)
-            Long userId = extractUserIdFromToken(token);
             String path = seckillService.getSeckillPath(activityId, userId);
             return Result.success(path);
         } catch (Exception e) {
@@ -30,12 +39,18 @@ public class SeckillController {
         }
     }
 
+    /**
+     * The gateway rate-limits by the activityId query parameter, so it must name the activity in the body
+     */
     @PostMapping("/doSeckill/{path}")
     public Result<SeckillResult> doSeckill(@PathVariable String path,
+                                           @RequestParam Long activityId,
                                            @RequestBody SeckillRequest request,
-                                           @RequestHeader("Authorization") String token) {
+                                           @RequestHeader(USER_ID_HEADER) Long userId) {
+        if (!activityId.equals(request.getActivityId())) {
+            return Result.error(400, ACTIVITY_MISMATCH);
+        }
         try {
-            Long userId = extractUserIdFromToken(token);
             SeckillResult result = seckillService.doSeckill(request.getActivityId(), userId, path);
             return Result.success(result);
         } catch (Exception e) {
@@ -46,9 +61,8 @@ public class SeckillController {
 
     @GetMapping("/result/{activityId}")
     public Result<SeckillResult> getSeckillResult(@PathVariable Long activityId,
-                                                  @RequestHeader("Authorization") String token) {
+                                                  @RequestHeader(USER_ID_HEADER) Long userId) {
         try {
-            Long userId = extractUserIdFromToken(token);
             SeckillResult result = seckillService.getSeckillResult(activityId, userId);
             return Result.success(result);
         } catch (Exception e) {
@@ -57,18 +71,10 @@ public class SeckillController {
         }
     }
 
-    private Long extractUserIdFromToken(String token) {
-        // Simplified extraction - in real scenario, use JWT parser
-        // This is a placeholder that should be replaced with actual JWT parsing
-        try {
-            String actualToken = token.startsWith("Bearer ") ? token.substring(7) : token;
-            // For now, return a default user ID
-            // In production, parse the JWT token properly
-            return 1L;
-        } catch (Exception e) {
-            log.error("Failed to extract user ID from token", e);
-            throw new RuntimeException("Invalid token");
-        }
+    @GetMapping(value = "/subscribe/{activityId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeSeckillResult(@PathVariable Long activityId,
+                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+        return seckillService.subscribeResult(activityId, userId);
     }
 
 }
@@ -2,9 +2,24 @@ package com.manus.seckill.seckill.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.manus.seckill.seckill.entity.SeckillOrder;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface SeckillOrderMapper extends BaseMapper<SeckillOrder> {
 
+    /**
+     * Multi-row insert, rows that hit uk_user_activity are skipped
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO t_seckill_order (id, user_id, activity_id, create_time) VALUES " +
+            "<foreach collection='orders' item='o' separator=','>" +
+            "(#{o.id}, #{o.userId}, #{o.activityId}, #{o.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("orders") List<SeckillOrder> orders);
+
 }
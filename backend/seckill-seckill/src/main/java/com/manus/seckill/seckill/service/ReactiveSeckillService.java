@@ -0,0 +1,27 @@
+package com.manus.seckill.seckill.service;
+
+import com.manus.seckill.seckill.dto.SeckillResult;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link SeckillService}, served when
+ * seckill.web.mode is reactive
+ */
+public interface ReactiveSeckillService {
+
+    /**
+     * Get seckill path (hidden path for anti-bot)
+     */
+    Mono<String> getSeckillPath(Long activityId, Long userId);
+
+    /**
+     * Execute seckill
+     */
+    Mono<SeckillResult> doSeckill(Long activityId, Long userId, String path);
+
+    /**
+     * Get seckill result
+     */
+    Mono<SeckillResult> getSeckillResult(Long activityId, Long userId);
+
+}
@@ -1,6 +1,7 @@
 package com.manus.seckill.seckill.service;
 
 import com.manus.seckill.seckill.dto.SeckillResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface SeckillService {
 
@@ -19,4 +20,9 @@ public interface SeckillService {
      */
     SeckillResult getSeckillResult(Long activityId, Long userId);
 
+    /**
+     * Subscribe to the seckill result over server-sent events
+     */
+    SseEmitter subscribeResult(Long activityId, Long userId);
+
 }
@@ -0,0 +1,147 @@
+package com.manus.seckill.seckill.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional node-local stock shard. The node claims stock from the global
+ * Redis counter in batches and hands units out from memory, so only one
+ * request per batch touches the counter.
+ */
+@Slf4j
+@Component
+public class LocalStockShard {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Value("${seckill.stock.shard.enabled:false}")
+    private boolean enabled;
+
+    @Value("${seckill.stock.shard.batch-size:50}")
+    private long batchSize;
+
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String SECKILL_META_PREFIX = "seckill:meta:";
+
+    private static final DefaultRedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        CLAIM_SCRIPT.setLocation(new ClassPathResource("lua/seckill_claim.lua"));
+        CLAIM_SCRIPT.setResultType(Long.class);
+    }
+
+    public enum AcquireResult {
+        ACQUIRED, SOLD_OUT, NOT_LOADED, NOT_STARTED, ENDED
+    }
+
+    private final Map<Long, Shard> shards = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take one unit from the local shard, claiming a new batch when it is empty
+     */
+    public AcquireResult acquire(Long activityId) {
+        Shard shard = shards.computeIfAbsent(activityId, id -> new Shard());
+        while (true) {
+            if (tryTake(shard.units)) {
+                return AcquireResult.ACQUIRED;
+            }
+            // Not synchronized: a virtual thread waiting on Redis inside a monitor would pin its carrier
+            shard.refill.lock();
+            try {
+                // Another thread may have refilled the shard while we waited
+                if (shard.units.get() > 0) {
+                    continue;
+                }
+                Long claimed = stringRedisTemplate.execute(CLAIM_SCRIPT,
+                        Arrays.asList(SECKILL_STOCK_PREFIX + activityId, SECKILL_META_PREFIX + activityId),
+                        String.valueOf(batchSize), String.valueOf(System.currentTimeMillis()));
+                if (claimed == null || claimed == -1) {
+                    return AcquireResult.NOT_LOADED;
+                }
+                if (claimed == -2) {
+                    return AcquireResult.NOT_STARTED;
+                }
+                if (claimed < 0) {
+                    return AcquireResult.ENDED;
+                }
+                if (claimed == 0) {
+                    return AcquireResult.SOLD_OUT;
+                }
+                shard.units.addAndGet(claimed);
+            } finally {
+                shard.refill.unlock();
+            }
+        }
+    }
+
+    /**
+     * Put a unit back into the local shard, e.g. after a duplicate purchase
+     */
+    public void release(Long activityId) {
+        shards.computeIfAbsent(activityId, id -> new Shard()).units.incrementAndGet();
+    }
+
+    public long getLocalStock(Long activityId) {
+        Shard shard = shards.get(activityId);
+        return shard == null ? 0 : shard.units.get();
+    }
+
+    private boolean tryTake(AtomicLong shard) {
+        long current;
+        do {
+            current = shard.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!shard.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    /**
+     * Return unsold units to the global counter so other nodes can sell them. Nodes that
+     * ran out flagged the activity sold out locally only, the flag is cleared everywhere
+     */
+    @PreDestroy
+    public void returnUnsold() {
+        shards.forEach((activityId, shard) -> {
+            long remaining = shard.units.getAndSet(0);
+            if (remaining > 0) {
+                stringRedisTemplate.opsForValue().increment(SECKILL_STOCK_PREFIX + activityId, remaining);
+                soldOutRegistry.markAvailable(activityId);
+                log.info("Returned {} unsold units of seckill activity {}", remaining, activityId);
+            }
+        });
+    }
+
+    private static final class Shard {
+
+        private final AtomicLong units = new AtomicLong();
+
+        /**
+         * Held while claiming a batch, so one request per node goes to Redis
+         */
+        private final ReentrantLock refill = new ReentrantLock();
+
+    }
+
+}
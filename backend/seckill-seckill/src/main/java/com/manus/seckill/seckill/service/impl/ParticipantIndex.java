@@ -0,0 +1,188 @@
+package com.manus.seckill.seckill.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.seckill.entity.SeckillOrder;
+import com.manus.seckill.seckill.mapper.SeckillOrderMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-activity index of users who already bought, checked and updated by
+ * the stock scripts in the same atomic step as the stock decrement.
+ * <p>
+ * The exact Redis set seckill:users:{activityId} is always the authority.
+ * bloom mode adds a Redis bitmap used as a Bloom filter in front of it: a
+ * user with any bit clear has certainly not bought and skips the set
+ * lookup, and a user with all bits set is confirmed against the set, so a
+ * false positive never turns away a first-time buyer. Bits are only ever
+ * set, so they stay a superset of the set's members; a missing bitmap
+ * sends every check to the set. The uk_user_activity key in
+ * t_seckill_order stays as the last line of defence.
+ */
+@Slf4j
+@Component
+public class ParticipantIndex implements ApplicationRunner {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private SeckillOrderMapper seckillOrderMapper;
+
+    @Value("${seckill.participant.mode:set}")
+    private String mode;
+
+    @Value("${seckill.participant.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${seckill.participant.bloom.fpp:0.001}")
+    private double fpp;
+
+    @Value("${seckill.participant.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    private static final String SECKILL_USERS_PREFIX = "seckill:users:";
+    private static final String SECKILL_USERS_BLOOM_PREFIX = "seckill:users:bloom:";
+    private static final String MODE_BLOOM = "bloom";
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private long numBits;
+    private int numHashes;
+
+    public boolean isBloom() {
+        return MODE_BLOOM.equals(mode);
+    }
+
+    /**
+     * The exact participant set
+     */
+    public String key(Long activityId) {
+        return SECKILL_USERS_PREFIX + activityId;
+    }
+
+    public String bloomKey(Long activityId) {
+        return SECKILL_USERS_BLOOM_PREFIX + activityId;
+    }
+
+    /**
+     * Trailing script keys: the Bloom bitmap in bloom mode, none otherwise
+     */
+    public List<String> extraKeys(Long activityId) {
+        List<String> keys = new ArrayList<>();
+        if (isBloom()) {
+            keys.add(bloomKey(activityId));
+        }
+        return keys;
+    }
+
+    /**
+     * Script arguments after the userId and payload: the Bloom bit offsets in bloom mode, none otherwise
+     */
+    public List<String> bitOffsets(Long userId) {
+        List<String> offsets = new ArrayList<>();
+        if (!isBloom()) {
+            return offsets;
+        }
+        long hash1 = mix(userId);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < numHashes; i++) {
+            long combined = hash1 + i * hash2;
+            offsets.add(String.valueOf(Math.floorMod(combined, numBits)));
+        }
+        return offsets;
+    }
+
+    /**
+     * Non-atomic membership check, only used by the legacy lock path. Not worth a
+     * bitmap round trip ahead of the set, so it always asks the set
+     */
+    public boolean contains(Long activityId, Long userId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(key(activityId), String.valueOf(userId)));
+    }
+
+    public void add(Long activityId, Long userId) {
+        String key = key(activityId);
+        String bloomKey = bloomKey(activityId);
+        List<String> offsets = bitOffsets(userId);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sAdd(key, String.valueOf(userId));
+            for (String offset : offsets) {
+                conn.setBit(bloomKey, Long.parseLong(offset), true);
+            }
+            return null;
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        double ln2 = Math.log(2);
+        numBits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (ln2 * ln2)));
+        numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * ln2));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-add every user in t_seckill_order, walking the table by primary key in pipelined batches
+     */
+    public void rebuild() {
+        long lastId = Long.MIN_VALUE;
+        long total = 0;
+        while (true) {
+            List<SeckillOrder> orders = seckillOrderMapper.selectList(
+                    new LambdaQueryWrapper<SeckillOrder>()
+                            .select(SeckillOrder::getId, SeckillOrder::getUserId, SeckillOrder::getActivityId)
+                            .gt(SeckillOrder::getId, lastId)
+                            .orderByAsc(SeckillOrder::getId)
+                            .last("LIMIT " + REBUILD_BATCH_SIZE)
+            );
+            if (orders.isEmpty()) {
+                break;
+            }
+
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (SeckillOrder order : orders) {
+                    conn.sAdd(key(order.getActivityId()), String.valueOf(order.getUserId()));
+                    String bloomKey = bloomKey(order.getActivityId());
+                    for (String offset : bitOffsets(order.getUserId())) {
+                        conn.setBit(bloomKey, Long.parseLong(offset), true);
+                    }
+                }
+                return null;
+            });
+
+            total += orders.size();
+            lastId = orders.get(orders.size() - 1).getId();
+        }
+        log.info("Participant index rebuilt from t_seckill_order, mode={}, entries={}", mode, total);
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads user ids evenly over the bitmap
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
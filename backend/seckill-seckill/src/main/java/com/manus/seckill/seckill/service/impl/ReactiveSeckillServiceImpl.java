@@ -0,0 +1,209 @@
+package com.manus.seckill.seckill.service.impl;
+
+import com.manus.seckill.common.SeckillResults;
+import com.manus.seckill.seckill.common.LogSampler;
+import com.manus.seckill.seckill.common.SeckillMetrics;
+import com.manus.seckill.seckill.common.SeckillMetrics.Outcome;
+import com.manus.seckill.seckill.common.SeckillMetrics.Stage;
+import com.manus.seckill.seckill.dto.SeckillResult;
+import com.manus.seckill.seckill.service.ReactiveSeckillService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * doSeckill and friends on the reactive Redis client. No request holds a
+ * thread while Redis answers: the deduct script (which also appends to
+ * seckill:stream) and the result lookups are chained on the client's event
+ * loop, and paths are signed and checked in memory.
+ * <p>
+ * Admission is bounded by max-in-flight: a request arriving while that many
+ * are waiting on Redis is answered busy at once instead of queueing behind
+ * them in the client, so a burst cannot grow the command queue, or the
+ * stream, faster than Redis drains it.
+ * <p>
+ * Only the atomic stock mode is supported; the lock path and the local
+ * stock shard block by design.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "seckill.web.mode", havingValue = "reactive")
+public class ReactiveSeckillServiceImpl implements ReactiveSeckillService {
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    @Autowired
+    private SeckillStockEngine seckillStockEngine;
+
+    @Autowired
+    private LocalStockShard localStockShard;
+
+    @Autowired
+    private ParticipantIndex participantIndex;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
+
+    @Autowired
+    private SeckillPathSigner seckillPathSigner;
+
+    @Autowired
+    private SeckillMetrics seckillMetrics;
+
+    @Value("${seckill.stock.mode:atomic}")
+    private String stockMode;
+
+    @Value("${seckill.web.max-in-flight:10000}")
+    private int maxInFlight;
+
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String STOCK_MODE_ATOMIC = "atomic";
+
+    private static final LogSampler SHED_LOG = new LogSampler(10);
+
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        if (!STOCK_MODE_ATOMIC.equals(stockMode) || localStockShard.isEnabled()) {
+            throw new IllegalStateException(
+                    "seckill.web.mode=reactive needs seckill.stock.mode=atomic without the local stock shard");
+        }
+        inFlight = new Semaphore(maxInFlight);
+        log.info("Reactive seckill endpoints enabled, maxInFlight={}", maxInFlight);
+    }
+
+    @Override
+    public Mono<String> getSeckillPath(Long activityId, Long userId) {
+        return Mono.fromSupplier(() -> {
+            long start = System.nanoTime();
+            String path = seckillPathSigner.issue(activityId, userId);
+            log.debug("Generated seckill path for user {} and activity {}", userId, activityId);
+            seckillMetrics.pathIssued(start);
+            return path;
+        });
+    }
+
+    @Override
+    public Mono<SeckillResult> doSeckill(Long activityId, Long userId, String path) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            if (soldOutRegistry.isSoldOut(activityId)) {
+                return Mono.just(finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null)));
+            }
+            // In memory, so bots are turned away before taking an in-flight permit; the path is
+            // only marked used once the deduct script answers
+            long stageStart = System.nanoTime();
+            boolean validPath = seckillPathSigner.verify(activityId, userId, path);
+            seckillMetrics.stage(Stage.PATH_CHECK, stageStart);
+            if (!validPath) {
+                SeckillServiceImpl.logInvalidPath(activityId, userId);
+                return Mono.just(finish(Outcome.INVALID_PATH, start, new SeckillResult(-1, "Invalid seckill path", null)));
+            }
+            if (!inFlight.tryAcquire()) {
+                if (SHED_LOG.sample()) {
+                    log.warn("Shed seckill request for activity {}, {} already in flight ({} more since last logged)",
+                            activityId, maxInFlight, SHED_LOG.takeSuppressed());
+                }
+                return Mono.just(finish(Outcome.BUSY, start,
+                        new SeckillResult(-1, "System busy, please retry", null)));
+            }
+            return deduct(activityId, userId, path, start)
+                    .onErrorResume(e -> {
+                        log.error("Error during seckill", e);
+                        return Mono.just(finish(Outcome.ERROR, start,
+                                new SeckillResult(-1, "Seckill failed: " + e.getMessage(), null)));
+                    })
+                    .doFinally(signal -> inFlight.release());
+        });
+    }
+
+    private Mono<SeckillResult> deduct(Long activityId, Long userId, String path, long start) {
+        long stageStart = System.nanoTime();
+        return seckillStockEngine.deduct(reactiveStringRedisTemplate, activityId, userId).map(result -> {
+            seckillMetrics.stage(Stage.DEDUCT, stageStart);
+            // Not before, a shed or failed request may retry with the same path
+            if (result != SeckillStockEngine.DeductResult.NOT_STARTED) {
+                seckillPathSigner.markUsed(path);
+            }
+            switch (result) {
+                case SUCCESS:
+                    SeckillServiceImpl.logAccepted(activityId, userId);
+                    return finish(Outcome.ACCEPTED, start, new SeckillResult(0, "Waiting for order confirmation", null));
+                case DUPLICATE:
+                    SeckillServiceImpl.logDuplicate(activityId, userId);
+                    return finish(Outcome.DUPLICATE, start,
+                            new SeckillResult(-1, "You have already participated in this seckill", null));
+                case SOLD_OUT:
+                    markSoldOut(activityId);
+                    SeckillServiceImpl.logSoldOut(activityId);
+                    return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
+                case NOT_STARTED:
+                case ENDED:
+                    return finish(Outcome.CLOSED, start, SeckillServiceImpl.closed(result));
+                default:
+                    SeckillServiceImpl.logSoldOut(activityId);
+                    return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
+            }
+        });
+    }
+
+    /**
+     * The broadcast is a blocking publish, so it runs off the Redis client's event loop
+     */
+    private void markSoldOut(Long activityId) {
+        if (soldOutRegistry.isSoldOut(activityId)) {
+            return;
+        }
+        Mono.fromRunnable(() -> soldOutRegistry.markSoldOut(activityId, true))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> log.warn("Failed to flag seckill activity {} as sold out", activityId, e));
+    }
+
+    private SeckillResult finish(Outcome outcome, long start, SeckillResult result) {
+        seckillMetrics.request(outcome, start);
+        return result;
+    }
+
+    @Override
+    public Mono<SeckillResult> getSeckillResult(Long activityId, Long userId) {
+        return reactiveStringRedisTemplate.opsForValue().get(SeckillResults.key(activityId, userId))
+                .map(SeckillResultNotifier::decode)
+                .switchIfEmpty(Mono.defer(() -> pendingOrEnded(activityId, userId)))
+                .onErrorResume(e -> {
+                    log.error("Error getting seckill result", e);
+                    return Mono.just(new SeckillResult(-1, "Failed to get result: " + e.getMessage(), null));
+                });
+    }
+
+    private Mono<SeckillResult> pendingOrEnded(Long activityId, Long userId) {
+        return participated(activityId, userId).flatMap(participated -> {
+            if (participated) {
+                return Mono.just(new SeckillResult(0, "Still waiting in queue", null));
+            }
+            return reactiveStringRedisTemplate.opsForValue().get(SECKILL_STOCK_PREFIX + activityId)
+                    .map(Long::valueOf)
+                    .filter(stock -> stock > 0)
+                    .map(stock -> new SeckillResult(-1, "You have not participated in this seckill", null))
+                    .defaultIfEmpty(new SeckillResult(-1, "Seckill has ended", null));
+        });
+    }
+
+    /**
+     * Same check as ParticipantIndex.contains, against the authoritative set
+     */
+    private Mono<Boolean> participated(Long activityId, Long userId) {
+        return reactiveStringRedisTemplate.opsForSet()
+                .isMember(participantIndex.key(activityId), String.valueOf(userId));
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.manus.seckill.seckill.service.impl;
+
+import com.manus.seckill.common.LongBloomFilter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Self-validating seckill paths. A path is a URL-safe token of a version
+ * byte, the expiry in epoch seconds and a truncated HMAC-SHA256 over
+ * (activityId, userId, expiry), so issuing and checking one is a MAC in
+ * memory instead of a Redis write and read per user.
+ * <p>
+ * The MAC key is derived from seckill.path.secret per rotation window,
+ * chosen by the token's expiry, so no derived key is used for longer than
+ * one window. During a change of secret, tokens signed with
+ * previous-secret are still accepted until they expire.
+ * <p>
+ * With one-time mode each token is accepted once per node. The caller
+ * reports a token used with {@link #markUsed} once the deduct has decided
+ * the request, so a request shed as busy or failed on a Redis error can be
+ * retried with the same path. Used tokens are remembered in two Bloom
+ * filter generations, each spanning a token lifetime; a false positive
+ * rejects a fresh token with probability fpp. Concurrent and cross-node
+ * replays are still stopped by the participant index, which allows one
+ * purchase per user.
+ */
+@Slf4j
+@Component
+public class SeckillPathSigner {
+
+    /**
+     * Must be the same on every seckill node
+     */
+    @Value("${seckill.path.secret:seckill-path-secret-key-2024}")
+    private String secret;
+
+    @Value("${seckill.path.previous-secret:}")
+    private String previousSecret;
+
+    @Value("${seckill.path.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${seckill.path.rotation-hours:24}")
+    private long rotationHours;
+
+    @Value("${seckill.path.one-time.enabled:false}")
+    private boolean oneTime;
+
+    @Value("${seckill.path.one-time.expected-per-ttl:2000000}")
+    private long expectedPerTtl;
+
+    @Value("${seckill.path.one-time.fpp:0.0001}")
+    private double fpp;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int MAC_BYTES = 16;
+    private static final int TOKEN_BYTES = 1 + 4 + MAC_BYTES;
+    private static final int TOKEN_CHARS = (TOKEN_BYTES * 8 + 5) / 6;
+    private static final long MAX_CLOCK_SKEW_SECONDS = 30;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private long rotationSeconds;
+    private byte[] secretBytes;
+    private byte[] previousSecretBytes;
+
+    /**
+     * Initialised MAC per rotation window, cloned for each use
+     */
+    private final Map<Long, Mac> keys = new ConcurrentHashMap<>();
+    private final Map<Long, Mac> previousKeys = new ConcurrentHashMap<>();
+
+    private volatile LongBloomFilter usedCurrent;
+    private volatile LongBloomFilter usedPrevious;
+    private volatile long usedSince;
+
+    @PostConstruct
+    public void init() {
+        if (secret.isEmpty()) {
+            throw new IllegalStateException("seckill.path.secret must be set");
+        }
+        if (rotationHours <= 0) {
+            throw new IllegalStateException("seckill.path.rotation-hours must be positive");
+        }
+        rotationSeconds = rotationHours * 3600;
+        secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        previousSecretBytes = previousSecret.isEmpty() ? null : previousSecret.getBytes(StandardCharsets.UTF_8);
+        if (oneTime) {
+            usedCurrent = new LongBloomFilter(expectedPerTtl, fpp);
+            usedSince = System.currentTimeMillis() / 1000;
+        }
+        log.info("Seckill path tokens: ttl={}s, rotation={}h, previousSecret={}, oneTime={}",
+                ttlSeconds, rotationHours, previousSecretBytes != null, oneTime);
+    }
+
+    public String issue(Long activityId, Long userId) {
+        long expiry = System.currentTimeMillis() / 1000 + ttlSeconds;
+        byte[] token = new byte[TOKEN_BYTES];
+        token[0] = VERSION;
+        putInt(token, 1, expiry);
+        System.arraycopy(sign(keys, secretBytes, activityId, userId, expiry), 0, token, 5, MAC_BYTES);
+        return ENCODER.encodeToString(token);
+    }
+
+    /**
+     * Whether path was issued by issue for this user and activity and has not expired
+     * (nor, in one-time mode, been marked used)
+     */
+    public boolean verify(Long activityId, Long userId, String path) {
+        byte[] token = decode(path);
+        if (token == null) {
+            return false;
+        }
+        long expiry = getInt(token, 1);
+        long now = System.currentTimeMillis() / 1000;
+        if (expiry < now || expiry > now + ttlSeconds + MAX_CLOCK_SKEW_SECONDS) {
+            return false;
+        }
+        byte[] presented = Arrays.copyOfRange(token, 5, TOKEN_BYTES);
+        if (!matches(presented, sign(keys, secretBytes, activityId, userId, expiry))
+                && (previousSecretBytes == null
+                || !matches(presented, sign(previousKeys, previousSecretBytes, activityId, userId, expiry)))) {
+            return false;
+        }
+        return !oneTime || !used(getLong(presented), now);
+    }
+
+    /**
+     * In one-time mode, reject path from now on; call only for a path that passed verify
+     */
+    public void markUsed(String path) {
+        if (!oneTime) {
+            return;
+        }
+        byte[] token = decode(path);
+        if (token != null) {
+            rotate(System.currentTimeMillis() / 1000);
+            usedCurrent.add(getLong(Arrays.copyOfRange(token, 5, TOKEN_BYTES)));
+        }
+    }
+
+    private static byte[] decode(String path) {
+        if (path == null || path.length() != TOKEN_CHARS) {
+            return null;
+        }
+        byte[] token;
+        try {
+            token = DECODER.decode(path);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return token[0] == VERSION ? token : null;
+    }
+
+    private byte[] sign(Map<Long, Mac> cache, byte[] master, Long activityId, Long userId, long expiry) {
+        long window = expiry / rotationSeconds;
+        Mac prototype = cache.get(window);
+        if (prototype == null) {
+            prototype = cache.computeIfAbsent(window, w -> newMac(deriveKey(master, w)));
+            // Tokens live for minutes, only this window and the one before can still be presented
+            cache.keySet().removeIf(w -> w < window - 1);
+        }
+
+        byte[] message = new byte[21];
+        message[0] = VERSION;
+        putLong(message, 1, activityId);
+        putLong(message, 9, userId);
+        putInt(message, 17, expiry);
+        try {
+            return ((Mac) prototype.clone()).doFinal(message);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " provider does not support clone", e);
+        }
+    }
+
+    private static byte[] deriveKey(byte[] master, long window) {
+        return newMac(master).doFinal(("seckill-path:" + window).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialise " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Constant time, so response timing does not leak how much of a forged MAC was right
+     */
+    private static boolean matches(byte[] presented, byte[] expected) {
+        return MessageDigest.isEqual(presented, Arrays.copyOf(expected, MAC_BYTES));
+    }
+
+    private boolean used(long tokenId, long now) {
+        rotate(now);
+        LongBloomFilter previous = usedPrevious;
+        return previous != null && previous.mightContain(tokenId) || usedCurrent.mightContain(tokenId);
+    }
+
+    private void rotate(long now) {
+        // A generation spans a token's whole usable life, so current and previous cover every replay
+        if (now - usedSince >= ttlSeconds + MAX_CLOCK_SKEW_SECONDS) {
+            synchronized (this) {
+                if (now - usedSince >= ttlSeconds + MAX_CLOCK_SKEW_SECONDS) {
+                    usedPrevious = usedCurrent;
+                    usedCurrent = new LongBloomFilter(expectedPerTtl, fpp);
+                    usedSince = now;
+                }
+            }
+        }
+    }
+
+    private static void putInt(byte[] bytes, int offset, long value) {
+        for (int i = 3; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getInt(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.manus.seckill.seckill.service.impl;
+
+import com.manus.seckill.common.SeckillResults;
+import com.manus.seckill.seckill.dto.SeckillResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the final seckill results the order service writes under
+ * seckill:result:{activityId}:{userId} and pushes them to subscribed clients
+ * over SSE. The order service announces every result on a Redis channel all
+ * nodes listen to, so the node holding the client's connection delivers it.
+ */
+@Slf4j
+@Component
+public class SeckillResultNotifier implements MessageListener {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${seckill.result.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    private static final String EVENT_NAME = "seckill-result";
+
+    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SeckillResults.CHANNEL));
+    }
+
+    /**
+     * Open an SSE channel for one user and activity, sending the result at once if it is already known
+     */
+    public SseEmitter subscribe(Long activityId, Long userId) {
+        String subscriber = SeckillResults.subscriber(activityId, userId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> emitters.remove(subscriber, emitter));
+        emitter.onTimeout(() -> emitters.remove(subscriber, emitter));
+        emitter.onError(e -> emitters.remove(subscriber, emitter));
+
+        SseEmitter previous = emitters.put(subscriber, emitter);
+        if (previous != null) {
+            previous.complete();
+        }
+
+        SeckillResult result = getResult(activityId, userId);
+        if (result != null) {
+            send(subscriber, result);
+        }
+        return emitter;
+    }
+
+    /**
+     * Result stored for the user, or null while the order is still in the stream
+     */
+    public SeckillResult getResult(Long activityId, Long userId) {
+        String value = stringRedisTemplate.opsForValue().get(SeckillResults.key(activityId, userId));
+        return value == null ? null : decode(value);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String subscriber = SeckillResults.notifiedSubscriber(body);
+        if (subscriber == null) {
+            log.warn("Invalid seckill result notification: {}", body);
+            return;
+        }
+        if (emitters.containsKey(subscriber)) {
+            send(subscriber, decode(SeckillResults.notifiedResult(body)));
+        }
+    }
+
+    private void send(String subscriber, SeckillResult result) {
+        SseEmitter emitter = emitters.remove(subscriber);
+        if (emitter == null) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(result));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client went away, it can still poll the result endpoint
+            emitter.completeWithError(e);
+        }
+    }
+
+    static SeckillResult decode(String value) {
+        SeckillResults.Entry entry = SeckillResults.decode(value);
+        return new SeckillResult(entry.getStatus(), entry.getMessage(), entry.getOrderId());
+    }
+
+}
@@ -1,22 +1,23 @@
 package com.manus.seckill.seckill.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.manus.seckill.seckill.common.LogSampler;
+import com.manus.seckill.seckill.common.SeckillMetrics;
+import com.manus.seckill.seckill.common.SeckillMetrics.Outcome;
+import com.manus.seckill.seckill.common.SeckillMetrics.Stage;
 import com.manus.seckill.seckill.dto.SeckillResult;
-import com.manus.seckill.seckill.entity.SeckillOrder;
-import com.manus.seckill.seckill.mapper.SeckillOrderMapper;
 import com.manus.seckill.seckill.service.SeckillService;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -24,127 +25,275 @@ import java.util.concurrent.TimeUnit;
 public class SeckillServiceImpl implements SeckillService {
 
     @Autowired
-    private SeckillOrderMapper seckillOrderMapper;
+    private StringRedisTemplate stringRedisTemplate;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private SeckillStockEngine seckillStockEngine;
+
+    @Autowired
+    private LocalStockShard localStockShard;
+
+    @Autowired
+    private ParticipantIndex participantIndex;
+
+    @Autowired
+    private SeckillResultNotifier seckillResultNotifier;
+
+    @Autowired
+    private SeckillPathSigner seckillPathSigner;
+
+    @Autowired
+    private SoldOutRegistry soldOutRegistry;
 
     @Autowired
     private RedissonClient redissonClient;
 
+    @Autowired
+    private SeckillMetrics seckillMetrics;
+
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
-    private static final String SECKILL_PATH_PREFIX = "seckill:path:";
     private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
-    private static final String SECKILL_RESULT_PREFIX = "seckill:result:";
     private static final String SECKILL_STREAM_KEY = "seckill:stream";
     private static final String SECKILL_LOCK_PREFIX = "seckill:lock:";
+    private static final String STOCK_MODE_LOCK = "lock";
+
+    /**
+     * Per-request lines are sampled, each kind separately, so a flood of one
+     * outcome during a drop neither costs a log event per request nor hides the others
+     */
+    private static final int LOG_PERMITS_PER_SECOND = 10;
+    private static final LogSampler ACCEPTED_LOG = new LogSampler(LOG_PERMITS_PER_SECOND);
+    private static final LogSampler INVALID_PATH_LOG = new LogSampler(LOG_PERMITS_PER_SECOND);
+    private static final LogSampler DUPLICATE_LOG = new LogSampler(LOG_PERMITS_PER_SECOND);
+    private static final LogSampler SOLD_OUT_LOG = new LogSampler(LOG_PERMITS_PER_SECOND);
+    private static final LogSampler BUSY_LOG = new LogSampler(LOG_PERMITS_PER_SECOND);
+
+    /**
+     * atomic: single Lua script per request; lock: legacy Redisson lock path
+     */
+    @Value("${seckill.stock.mode:atomic}")
+    private String stockMode;
 
     @Override
     public String getSeckillPath(Long activityId, Long userId) {
-        // Generate a random path for this user
-        String path = UUID.randomUUID().toString();
-        String cacheKey = SECKILL_PATH_PREFIX + activityId + ":" + userId;
-        
-        // Cache the path for 5 minutes
-        redisTemplate.opsForValue().set(cacheKey, path, 5, TimeUnit.MINUTES);
-        
-        log.info("Generated seckill path for user {} and activity {}: {}", userId, activityId, path);
+        long start = System.nanoTime();
+        // Signed for this user and activity, checked in memory by doSeckill
+        String path = seckillPathSigner.issue(activityId, userId);
+
+        // Never log the path itself, it is the user's ticket for doSeckill
+        log.debug("Generated seckill path for user {} and activity {}", userId, activityId);
+        seckillMetrics.pathIssued(start);
         return path;
     }
 
     @Override
     public SeckillResult doSeckill(Long activityId, Long userId, String path) {
+        long start = System.nanoTime();
         try {
+            // Reject requests for sold-out activities without any remote I/O
+            if (soldOutRegistry.isSoldOut(activityId)) {
+                return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
+            }
+
             // Verify path
-            String cacheKey = SECKILL_PATH_PREFIX + activityId + ":" + userId;
-            String validPath = (String) redisTemplate.opsForValue().get(cacheKey);
-            
-            if (!path.equals(validPath)) {
-                log.warn("Invalid seckill path for user {} and activity {}", userId, activityId);
-                return new SeckillResult(-1, "Invalid seckill path", null);
+            long stageStart = System.nanoTime();
+            boolean validPath = seckillPathSigner.verify(activityId, userId, path);
+            seckillMetrics.stage(Stage.PATH_CHECK, stageStart);
+
+            if (!validPath) {
+                logInvalidPath(activityId, userId);
+                return finish(Outcome.INVALID_PATH, start, new SeckillResult(-1, "Invalid seckill path", null));
             }
 
+            if (STOCK_MODE_LOCK.equals(stockMode)) {
+                return deductWithLock(activityId, userId, path, start);
+            }
+            return deductAtomically(activityId, userId, path, start);
+
+        } catch (Exception e) {
+            log.error("Error during seckill", e);
+            return finish(Outcome.ERROR, start, new SeckillResult(-1, "Seckill failed: " + e.getMessage(), null));
+        }
+    }
+
+    private SeckillResult deductAtomically(Long activityId, Long userId, String path, long start) {
+        long stageStart = System.nanoTime();
+        SeckillStockEngine.DeductResult result = seckillStockEngine.deduct(activityId, userId);
+        seckillMetrics.stage(Stage.DEDUCT, stageStart);
+        // Only now, a request that failed before the script answered may retry with the same path
+        if (result != SeckillStockEngine.DeductResult.NOT_STARTED) {
+            seckillPathSigner.markUsed(path);
+        }
+        switch (result) {
+            case SUCCESS:
+                logAccepted(activityId, userId);
+                return finish(Outcome.ACCEPTED, start, new SeckillResult(0, "Waiting for order confirmation", null));
+            case DUPLICATE:
+                logDuplicate(activityId, userId);
+                return finish(Outcome.DUPLICATE, start,
+                        new SeckillResult(-1, "You have already participated in this seckill", null));
+            case SOLD_OUT:
+                // Shard mode only knows this node is out, other nodes may still hold units
+                soldOutRegistry.markSoldOut(activityId, !localStockShard.isEnabled());
+                logSoldOut(activityId);
+                return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
+            case NOT_STARTED:
+            case ENDED:
+                return finish(Outcome.CLOSED, start, closed(result));
+            default:
+                logSoldOut(activityId);
+                return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
+        }
+    }
+
+    /**
+     * Legacy path that serializes buyers on a Redisson lock, kept for comparison
+     */
+    private SeckillResult deductWithLock(Long activityId, Long userId, String path, long start)
+            throws InterruptedException, ExecutionException {
+        // Not atomic with the deduct below, a request in the last moment before the end may still go through
+        SeckillStockEngine.DeductResult window = seckillStockEngine.checkWindow(activityId);
+        if (window == SeckillStockEngine.DeductResult.NOT_STARTED) {
+            return finish(Outcome.CLOSED, start, closed(window));
+        }
+        if (window == SeckillStockEngine.DeductResult.ENDED) {
+            seckillPathSigner.markUsed(path);
+            return finish(Outcome.CLOSED, start, closed(window));
+        }
+
+        String lockKey = SECKILL_LOCK_PREFIX + activityId;
+        RLock lock = redissonClient.getLock(lockKey);
+
+        // Try to acquire lock with timeout. The wait parks on a future, which releases
+        // the carrier of a virtual thread; the lock is still owned by this thread for unlock()
+        long stageStart = System.nanoTime();
+        boolean locked = lock.tryLockAsync(3, 10, TimeUnit.SECONDS, Thread.currentThread().getId())
+                .toCompletableFuture().get();
+        seckillMetrics.stage(Stage.LOCK_WAIT, stageStart);
+        if (!locked) {
+            if (BUSY_LOG.sample()) {
+                log.warn("Failed to acquire lock for seckill activity {} ({} more since last logged)",
+                        activityId, BUSY_LOG.takeSuppressed());
+            }
+            return finish(Outcome.BUSY, start, new SeckillResult(0, "Waiting in queue", null));
+        }
+
+        try {
             // Check if user already participated
-            LambdaQueryWrapper<SeckillOrder> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(SeckillOrder::getUserId, userId)
-                    .eq(SeckillOrder::getActivityId, activityId);
-            SeckillOrder existingOrder = seckillOrderMapper.selectOne(queryWrapper);
-            
-            if (existingOrder != null) {
-                log.warn("User {} already participated in seckill activity {}", userId, activityId);
-                return new SeckillResult(-1, "You have already participated in this seckill", null);
+            stageStart = System.nanoTime();
+            boolean participated = participantIndex.contains(activityId, userId);
+            seckillMetrics.stage(Stage.DUPLICATE_CHECK, stageStart);
+            if (participated) {
+                seckillPathSigner.markUsed(path);
+                logDuplicate(activityId, userId);
+                return finish(Outcome.DUPLICATE, start,
+                        new SeckillResult(-1, "You have already participated in this seckill", null));
             }
 
-            // Use distributed lock to prevent stock deduction race condition
-            String lockKey = SECKILL_LOCK_PREFIX + activityId;
-            RLock lock = redissonClient.getLock(lockKey);
-            
-            try {
-                // Try to acquire lock with timeout
-                if (!lock.tryLock(3, 10, TimeUnit.SECONDS)) {
-                    log.warn("Failed to acquire lock for seckill activity {}", activityId);
-                    return new SeckillResult(0, "Waiting in queue", null);
-                }
+            // Check stock in Redis
+            stageStart = System.nanoTime();
+            Long stock = seckillStockEngine.getStock(activityId);
 
-                // Check stock in Redis
-                String stockKey = SECKILL_STOCK_PREFIX + activityId;
-                Long stock = (Long) redisTemplate.opsForValue().get(stockKey);
-                
-                if (stock == null || stock <= 0) {
-                    log.warn("No stock available for seckill activity {}", activityId);
-                    return new SeckillResult(-1, "Seckill has ended", null);
+            if (stock == null || stock <= 0) {
+                seckillMetrics.stage(Stage.STOCK_DECREMENT, stageStart);
+                if (stock != null) {
+                    soldOutRegistry.markSoldOut(activityId, true);
                 }
-
-                // Deduct stock
-                redisTemplate.opsForValue().decrement(stockKey);
-                
-                // Send message to stream for async order creation
-                String message = userId + ":" + activityId;
-                redisTemplate.opsForStream().add(SECKILL_STREAM_KEY, 
-                    java.util.Collections.singletonMap("data", message));
-                
-                log.info("User {} successfully participated in seckill activity {}", userId, activityId);
-                return new SeckillResult(0, "Waiting for order confirmation", null);
-                
-            } finally {
-                lock.unlock();
+                seckillPathSigner.markUsed(path);
+                logSoldOut(activityId);
+                return finish(Outcome.SOLD_OUT, start, new SeckillResult(-1, "Seckill has ended", null));
             }
-            
-        } catch (Exception e) {
-            log.error("Error during seckill", e);
-            return new SeckillResult(-1, "Seckill failed: " + e.getMessage(), null);
+
+            // Deduct stock
+            stringRedisTemplate.opsForValue().decrement(SECKILL_STOCK_PREFIX + activityId);
+            participantIndex.add(activityId, userId);
+            seckillMetrics.stage(Stage.STOCK_DECREMENT, stageStart);
+
+            // Send message to stream for async order creation
+            stageStart = System.nanoTime();
+            String message = userId + ":" + activityId;
+            stringRedisTemplate.opsForStream().add(SECKILL_STREAM_KEY,
+                    Collections.singletonMap("data", message));
+            seckillMetrics.stage(Stage.STREAM_ADD, stageStart);
+
+            seckillPathSigner.markUsed(path);
+            logAccepted(activityId, userId);
+            return finish(Outcome.ACCEPTED, start, new SeckillResult(0, "Waiting for order confirmation", null));
+
+        } finally {
+            lock.unlock();
         }
     }
 
+    /**
+     * Answer for a request before the start or after the end of the sale
+     */
+    static SeckillResult closed(SeckillStockEngine.DeductResult result) {
+        return new SeckillResult(-1, result == SeckillStockEngine.DeductResult.NOT_STARTED
+                ? "Seckill has not started" : "Seckill has ended", null);
+    }
+
+    static void logInvalidPath(Long activityId, Long userId) {
+        if (INVALID_PATH_LOG.sample()) {
+            log.warn("Invalid seckill path for user {} and activity {} ({} more since last logged)",
+                    userId, activityId, INVALID_PATH_LOG.takeSuppressed());
+        }
+    }
+
+    static void logAccepted(Long activityId, Long userId) {
+        if (ACCEPTED_LOG.sample()) {
+            log.info("User {} successfully participated in seckill activity {} ({} more since last logged)",
+                    userId, activityId, ACCEPTED_LOG.takeSuppressed());
+        }
+    }
+
+    static void logDuplicate(Long activityId, Long userId) {
+        if (DUPLICATE_LOG.sample()) {
+            log.warn("User {} already participated in seckill activity {} ({} more since last logged)",
+                    userId, activityId, DUPLICATE_LOG.takeSuppressed());
+        }
+    }
+
+    static void logSoldOut(Long activityId) {
+        if (SOLD_OUT_LOG.sample()) {
+            log.warn("No stock available for seckill activity {} ({} more since last logged)",
+                    activityId, SOLD_OUT_LOG.takeSuppressed());
+        }
+    }
+
+    private SeckillResult finish(Outcome outcome, long start, SeckillResult result) {
+        seckillMetrics.request(outcome, start);
+        return result;
+    }
+
+    @Override
+    public SseEmitter subscribeResult(Long activityId, Long userId) {
+        return seckillResultNotifier.subscribe(activityId, userId);
+    }
+
     @Override
     public SeckillResult getSeckillResult(Long activityId, Long userId) {
         try {
-            // Check if order was created
-            LambdaQueryWrapper<SeckillOrder> queryWrapper = new LambdaQueryWrapper<>();
-            queryWrapper.eq(SeckillOrder::getUserId, userId)
-                    .eq(SeckillOrder::getActivityId, activityId);
-            SeckillOrder order = seckillOrderMapper.selectOne(queryWrapper);
-            
-            if (order != null) {
-                SeckillResult result = new SeckillResult();
-                result.setStatus(1);
-                result.setMessage("Seckill successful");
-                result.setOrderId(order.getId());
+            // Final result written by the stream consumer
+            SeckillResult result = seckillResultNotifier.getResult(activityId, userId);
+            if (result != null) {
                 return result;
             }
-            
+
             // Check if still in queue
-            String stockKey = SECKILL_STOCK_PREFIX + activityId;
-            Long stock = (Long) redisTemplate.opsForValue().get(stockKey);
-            
-            if (stock != null && stock > 0) {
+            if (participantIndex.contains(activityId, userId)) {
                 return new SeckillResult(0, "Still waiting in queue", null);
             }
-            
+
+            Long stock = seckillStockEngine.getStock(activityId);
+            if (stock != null && stock > 0) {
+                return new SeckillResult(-1, "You have not participated in this seckill", null);
+            }
+
             return new SeckillResult(-1, "Seckill has ended", null);
-            
+
         } catch (Exception e) {
             log.error("Error getting seckill result", e);
             return new SeckillResult(-1, "Failed to get result: " + e.getMessage(), null);
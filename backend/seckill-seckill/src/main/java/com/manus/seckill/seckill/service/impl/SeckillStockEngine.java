@@ -0,0 +1,174 @@
+package com.manus.seckill.seckill.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lock-free stock engine. Sale window check, stock check, duplicate check,
+ * stock decrement and stream enqueue run inside one Lua script, so Redis
+ * serializes buyers without a distributed lock and stock can never go below
+ * zero. The window comes from the startTime and endTime that pre-warm writes
+ * to seckill:meta:{activityId}, compared with this node's clock.
+ */
+@Slf4j
+@Component
+public class SeckillStockEngine {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private LocalStockShard localStockShard;
+
+    @Autowired
+    private ParticipantIndex participantIndex;
+
+    private static final String SECKILL_STOCK_PREFIX = "seckill:stock:";
+    private static final String SECKILL_META_PREFIX = "seckill:meta:";
+    private static final String SECKILL_STREAM_KEY = "seckill:stream";
+
+    private static final DefaultRedisScript<Long> DEDUCT_SCRIPT = new DefaultRedisScript<>();
+    private static final DefaultRedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        DEDUCT_SCRIPT.setLocation(new ClassPathResource("lua/seckill_deduct.lua"));
+        DEDUCT_SCRIPT.setResultType(Long.class);
+        ENQUEUE_SCRIPT.setLocation(new ClassPathResource("lua/seckill_enqueue.lua"));
+        ENQUEUE_SCRIPT.setResultType(Long.class);
+    }
+
+    public enum DeductResult {
+        SUCCESS, SOLD_OUT, DUPLICATE, NOT_LOADED, NOT_STARTED, ENDED
+    }
+
+    /**
+     * Try to take one unit of stock for the user and enqueue the order message
+     */
+    public DeductResult deduct(Long activityId, Long userId) {
+        if (localStockShard.isEnabled()) {
+            return deductFromShard(activityId, userId);
+        }
+
+        return toResult(stringRedisTemplate.execute(DEDUCT_SCRIPT, deductKeys(activityId),
+                scriptArgs(activityId, userId)));
+    }
+
+    /**
+     * Same script as deduct without the local shard, on the reactive client
+     */
+    public Mono<DeductResult> deduct(ReactiveStringRedisTemplate redis, Long activityId, Long userId) {
+        return redis.execute(DEDUCT_SCRIPT, deductKeys(activityId), Arrays.asList(scriptArgs(activityId, userId)))
+                .next()
+                .map(SeckillStockEngine::toResult);
+    }
+
+    private static DeductResult toResult(Long code) {
+        if (code == null) {
+            throw new IllegalStateException("Stock script returned no result");
+        }
+        switch (code.intValue()) {
+            case 1:
+                return DeductResult.SUCCESS;
+            case 0:
+                return DeductResult.SOLD_OUT;
+            case -1:
+                return DeductResult.DUPLICATE;
+            case -3:
+                return DeductResult.NOT_STARTED;
+            case -4:
+                return DeductResult.ENDED;
+            default:
+                return DeductResult.NOT_LOADED;
+        }
+    }
+
+    private DeductResult deductFromShard(Long activityId, Long userId) {
+        switch (localStockShard.acquire(activityId)) {
+            case SOLD_OUT:
+                return DeductResult.SOLD_OUT;
+            case NOT_LOADED:
+                return DeductResult.NOT_LOADED;
+            case NOT_STARTED:
+                return DeductResult.NOT_STARTED;
+            case ENDED:
+                return DeductResult.ENDED;
+            default:
+                break;
+        }
+
+        List<String> keys = new ArrayList<>(Arrays.asList(participantIndex.key(activityId), SECKILL_STREAM_KEY,
+                SECKILL_META_PREFIX + activityId));
+        keys.addAll(participantIndex.extraKeys(activityId));
+        Long code;
+        try {
+            code = stringRedisTemplate.execute(ENQUEUE_SCRIPT, keys, scriptArgs(activityId, userId));
+        } catch (RuntimeException e) {
+            localStockShard.release(activityId);
+            throw e;
+        }
+
+        if (code == null || code != 1) {
+            localStockShard.release(activityId);
+            return code == null ? DeductResult.DUPLICATE : toResult(code);
+        }
+        return DeductResult.SUCCESS;
+    }
+
+    private List<String> deductKeys(Long activityId) {
+        List<String> keys = new ArrayList<>(Arrays.asList(
+                SECKILL_STOCK_PREFIX + activityId,
+                participantIndex.key(activityId),
+                SECKILL_STREAM_KEY,
+                SECKILL_META_PREFIX + activityId));
+        keys.addAll(participantIndex.extraKeys(activityId));
+        return keys;
+    }
+
+    private Object[] scriptArgs(Long activityId, Long userId) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        args.add(userId + ":" + activityId);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.addAll(participantIndex.bitOffsets(userId));
+        return args.toArray();
+    }
+
+    /**
+     * Non-atomic sale window check for the legacy lock path: NOT_LOADED, NOT_STARTED
+     * or ENDED when the activity cannot be bought now, null when it is open
+     */
+    public DeductResult checkWindow(Long activityId) {
+        List<Object> window = stringRedisTemplate.opsForHash().multiGet(SECKILL_META_PREFIX + activityId,
+                Arrays.asList("startTime", "endTime"));
+        if (window.get(0) == null || window.get(1) == null) {
+            return DeductResult.NOT_LOADED;
+        }
+        long now = System.currentTimeMillis();
+        if (now < Long.parseLong((String) window.get(0))) {
+            return DeductResult.NOT_STARTED;
+        }
+        if (now >= Long.parseLong((String) window.get(1))) {
+            return DeductResult.ENDED;
+        }
+        return null;
+    }
+
+    /**
+     * Current stock counter, or null if the activity has not been loaded into Redis
+     */
+    public Long getStock(Long activityId) {
+        String stock = stringRedisTemplate.opsForValue().get(SECKILL_STOCK_PREFIX + activityId);
+        return stock == null ? null : Long.valueOf(stock);
+    }
+
+}
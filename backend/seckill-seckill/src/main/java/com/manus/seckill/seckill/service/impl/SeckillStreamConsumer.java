@@ -1,69 +1,229 @@
 package com.manus.seckill.seckill.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.manus.seckill.common.SnowflakeIdGenerator;
+import com.manus.seckill.common.StreamGroupConsumer;
+import com.manus.seckill.seckill.common.SeckillMetrics;
 import com.manus.seckill.seckill.entity.SeckillOrder;
 import com.manus.seckill.seckill.mapper.SeckillOrderMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.connection.stream.ObjectRecord;
-import org.springframework.data.redis.connection.stream.StreamOffset;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * Consumer-group reader for seckill:stream. Records are read in batches,
+ * written to t_seckill_order with one multi-row insert and acknowledged only
+ * after the insert has committed and the orders have been handed on to
+ * seckill:order:stream, where seckill-order creates the payable t_order rows
+ * and publishes the results. Entries left pending by dead consumers are
+ * taken over with XAUTOCLAIM.
+ */
 @Slf4j
 @Component
-public class SeckillStreamConsumer implements StreamListener<String, ObjectRecord<String, Map<String, String>>> {
+public class SeckillStreamConsumer {
 
     @Autowired
     private SeckillOrderMapper seckillOrderMapper;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private SeckillMetrics seckillMetrics;
+
+    @Value("${seckill.stream.group:seckill-order-group}")
+    private String group;
+
+    @Value("${seckill.stream.consumer:}")
+    private String consumerPrefix;
+
+    @Value("${seckill.stream.threads:1}")
+    private int threads;
+
+    @Value("${seckill.stream.batch-size:200}")
+    private int batchSize;
+
+    @Value("${seckill.stream.block-ms:2000}")
+    private long blockMs;
+
+    @Value("${seckill.stream.claim-idle-ms:60000}")
+    private long claimIdleMs;
+
+    @Value("${seckill.stream.claim-interval-ms:30000}")
+    private long claimIntervalMs;
+
+    /**
+     * Approximate cap on seckill:order:stream, far above what the order service leaves unread
+     */
+    @Value("${seckill.stream.order-stream-max-len:1000000}")
+    private long orderStreamMaxLen;
 
     private static final String SECKILL_STREAM_KEY = "seckill:stream";
+    private static final String ORDER_STREAM_KEY = "seckill:order:stream";
+
+    private StreamGroupConsumer streamConsumer;
 
     @PostConstruct
     public void init() {
-        // Initialize stream consumer
-        log.info("Seckill stream consumer initialized");
+        streamConsumer = new StreamGroupConsumer(stringRedisTemplate, SECKILL_STREAM_KEY, group, this::processBatch)
+                .batchSize(batchSize)
+                .blockMs(blockMs)
+                .claim(claimIdleMs, claimIntervalMs);
+        streamConsumer.start(consumerPrefix, threads,
+                StreamGroupConsumer.threadFactory(environment, "seckill-stream-consumer-"));
+        log.info("Seckill stream consumer initialized: group={}, consumers={}, batchSize={}",
+                group, threads, batchSize);
     }
 
-    @Override
-    public void onMessage(ObjectRecord<String, Map<String, String>> message) {
-        try {
-            Map<String, String> data = message.getValue();
-            String messageData = data.get("data");
-            
-            if (messageData == null) {
-                log.warn("Empty message data");
-                return;
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        streamConsumer.stop();
+    }
+
+    /**
+     * Insert the whole batch with one statement, hand it to the order stream, then acknowledge it
+     */
+    void processBatch(List<MapRecord<String, Object, Object>> records) {
+        List<SeckillOrder> orders = new ArrayList<>(records.size());
+        List<RecordId> ackIds = new ArrayList<>(records.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (MapRecord<String, Object, Object> record : records) {
+            ackIds.add(record.getId());
+            SeckillOrder order = parse(record);
+            if (order == null) {
+                // Malformed entries can never succeed, ack them so they do not block the group
+                continue;
             }
+            order.setCreateTime(now);
+            orders.add(order);
+        }
+        assignIds(orders);
 
-            // Parse userId and activityId from message
-            String[] parts = messageData.split(":");
-            if (parts.length != 2) {
-                log.warn("Invalid message format: {}", messageData);
-                return;
+        if (!orders.isEmpty()) {
+            int inserted = seckillOrderMapper.insertBatch(orders);
+            if (inserted < orders.size()) {
+                log.warn("{} of {} seckill orders already existed", orders.size() - inserted, orders.size());
+                resolveExistingIds(orders);
             }
+        }
 
-            Long userId = Long.parseLong(parts[0]);
-            Long activityId = Long.parseLong(parts[1]);
+        // A failure here leaves the batch pending; redelivery resolves the same ids,
+        // and the order service ignores orders it has already created
+        handOff(orders);
+        stringRedisTemplate.opsForStream().acknowledge(SECKILL_STREAM_KEY, group,
+                ackIds.toArray(new RecordId[0]));
+        seckillMetrics.streamBatch(records.size(), records.get(0).getId().getTimestamp());
+        log.debug("Seckill order batch persisted: records={}, orders={}", records.size(), orders.size());
+    }
 
-            // Create seckill order
-            SeckillOrder order = new SeckillOrder();
-            order.setUserId(userId);
-            order.setActivityId(activityId);
-            order.setCreateTime(LocalDateTime.now());
+    /**
+     * Consecutive ids reserved in blocks, one CAS per block instead of one per order
+     */
+    private void assignIds(List<SeckillOrder> orders) {
+        int assigned = 0;
+        while (assigned < orders.size()) {
+            int count = Math.min(orders.size() - assigned, SnowflakeIdGenerator.MAX_BLOCK);
+            long id = idGenerator.nextBlock(count);
+            for (int i = 0; i < count; i++) {
+                orders.get(assigned++).setId(id++);
+            }
+        }
+    }
+
+    /**
+     * Rows skipped by INSERT IGNORE keep the id of the order that was already there
+     */
+    private void resolveExistingIds(List<SeckillOrder> orders) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> activityIds = new HashSet<>();
+        for (SeckillOrder order : orders) {
+            userIds.add(order.getUserId());
+            activityIds.add(order.getActivityId());
+        }
+        Map<String, Long> existingIds = new HashMap<>();
+        for (SeckillOrder existing : seckillOrderMapper.selectList(
+                new LambdaQueryWrapper<SeckillOrder>()
+                        .in(SeckillOrder::getUserId, userIds)
+                        .in(SeckillOrder::getActivityId, activityIds))) {
+            existingIds.put(existing.getActivityId() + ":" + existing.getUserId(), existing.getId());
+        }
+        for (SeckillOrder order : orders) {
+            Long id = existingIds.get(order.getActivityId() + ":" + order.getUserId());
+            if (id != null) {
+                order.setId(id);
+            }
+        }
+    }
+
+    /**
+     * One pipelined XADD per order, data is seckillOrderId:userId:activityId
+     */
+    private void handOff(List<SeckillOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        XAddOptions options = XAddOptions.maxlen(orderStreamMaxLen).approximateTrimming(true);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (SeckillOrder order : orders) {
+                String data = order.getId() + ":" + order.getUserId() + ":" + order.getActivityId();
+                conn.xAdd(StringRecord.of(Collections.singletonMap("data", data)).withStreamKey(ORDER_STREAM_KEY),
+                        options);
+            }
+            return null;
+        });
+    }
 
-            seckillOrderMapper.insert(order);
-            log.info("Seckill order created: userId={}, activityId={}, orderId={}", userId, activityId, order.getId());
+    public static SeckillOrder parse(MapRecord<String, Object, Object> record) {
+        Object data = record.getValue().get("data");
+        if (data == null) {
+            log.warn("Empty message data: {}", record.getId());
+            return null;
+        }
+
+        // Parse userId and activityId from message
+        String messageData = data.toString();
+        int separator = messageData.indexOf(':');
+        if (separator <= 0 || separator != messageData.lastIndexOf(':')) {
+            log.warn("Invalid message format: {}", messageData);
+            return null;
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing seckill stream message", e);
+        try {
+            SeckillOrder order = new SeckillOrder();
+            order.setUserId(Long.parseLong(messageData.substring(0, separator)));
+            order.setActivityId(Long.parseLong(messageData.substring(separator + 1)));
+            return order;
+        } catch (NumberFormatException e) {
+            log.warn("Invalid message format: {}", messageData);
+            return null;
         }
     }
 
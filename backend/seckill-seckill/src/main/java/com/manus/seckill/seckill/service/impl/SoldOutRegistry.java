@@ -0,0 +1,79 @@
+package com.manus.seckill.seckill.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local sold-out flags. Once an activity is known to be sold out, later
+ * requests are rejected without any Redis or MySQL access. Flags are shared
+ * between nodes over Redis pub/sub.
+ */
+@Slf4j
+@Component
+public class SoldOutRegistry implements MessageListener {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private static final String SOLD_OUT_CHANNEL = "seckill:soldout";
+    private static final String SOLD_OUT = "soldout:";
+    private static final String AVAILABLE = "available:";
+
+    private final Set<Long> soldOutActivities = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(SOLD_OUT_CHANNEL));
+    }
+
+    public boolean isSoldOut(Long activityId) {
+        return soldOutActivities.contains(activityId);
+    }
+
+    /**
+     * Flag the activity on this node and, when broadcast is set, on every other node
+     */
+    public void markSoldOut(Long activityId, boolean broadcast) {
+        if (soldOutActivities.add(activityId) && broadcast) {
+            stringRedisTemplate.convertAndSend(SOLD_OUT_CHANNEL, SOLD_OUT + activityId);
+            log.info("Seckill activity {} sold out, notified other nodes", activityId);
+        }
+    }
+
+    /**
+     * Clear the flag everywhere, e.g. when stock is returned to the pool
+     */
+    public void markAvailable(Long activityId) {
+        soldOutActivities.remove(activityId);
+        stringRedisTemplate.convertAndSend(SOLD_OUT_CHANNEL, AVAILABLE + activityId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (body.startsWith(SOLD_OUT)) {
+                soldOutActivities.add(Long.parseLong(body.substring(SOLD_OUT.length())));
+            } else if (body.startsWith(AVAILABLE)) {
+                soldOutActivities.remove(Long.parseLong(body.substring(AVAILABLE.length())));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid sold-out notification: {}", body);
+        }
+    }
+
+}
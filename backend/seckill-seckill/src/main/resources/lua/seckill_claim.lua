@@ -0,0 +1,30 @@
+-- Claim a batch of stock units for a node-local shard.
+--
+-- KEYS[1] stock counter      seckill:stock:{activityId}
+-- KEYS[2] activity meta      seckill:meta:{activityId}
+-- ARGV[1] batch size
+-- ARGV[2] now, epoch milliseconds
+--
+-- Returns the number of units claimed (0 when sold out), -1 if stock is not loaded,
+-- -2 before the start, -3 after the end
+local stock = redis.call('GET', KEYS[1])
+local window = redis.call('HMGET', KEYS[2], 'startTime', 'endTime')
+if not stock or not window[1] or not window[2] then
+    return -1
+end
+
+local now = tonumber(ARGV[2])
+if now < tonumber(window[1]) then
+    return -2
+end
+if now >= tonumber(window[2]) then
+    return -3
+end
+
+local claimed = math.min(tonumber(stock), tonumber(ARGV[1]))
+if claimed <= 0 then
+    return 0
+end
+
+redis.call('DECRBY', KEYS[1], claimed)
+return claimed
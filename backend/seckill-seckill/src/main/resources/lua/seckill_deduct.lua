@@ -0,0 +1,64 @@
+-- Atomic seckill deduction: sale window check, stock check,
+-- one-purchase-per-user check, stock decrement and order enqueue in a
+-- single round trip.
+--
+-- KEYS[1] stock counter      seckill:stock:{activityId}
+-- KEYS[2] participant set    seckill:users:{activityId}
+-- KEYS[3] order stream       seckill:stream
+-- KEYS[4] activity meta      seckill:meta:{activityId}
+-- KEYS[5] participant bloom  seckill:users:bloom:{activityId}, only in bloom mode
+-- ARGV[1] userId
+-- ARGV[2] stream payload     userId:activityId
+-- ARGV[3] now, epoch milliseconds
+-- ARGV[4..] Bloom filter bit offsets, only in bloom mode
+--
+-- Returns  1 success, 0 sold out, -1 already participated, -2 stock not loaded,
+--         -3 not started, -4 ended
+local function participated()
+    -- A clear bit proves the user is new; all bits set is only confirmed by the set
+    if #KEYS > 4 and redis.call('EXISTS', KEYS[5]) == 1 then
+        for i = 4, #ARGV do
+            if redis.call('GETBIT', KEYS[5], ARGV[i]) == 0 then
+                return false
+            end
+        end
+    end
+    return redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1
+end
+
+local function markParticipated()
+    redis.call('SADD', KEYS[2], ARGV[1])
+    if #KEYS > 4 then
+        for i = 4, #ARGV do
+            redis.call('SETBIT', KEYS[5], ARGV[i], 1)
+        end
+    end
+end
+
+local stock = redis.call('GET', KEYS[1])
+local window = redis.call('HMGET', KEYS[4], 'startTime', 'endTime')
+if not stock or not window[1] or not window[2] then
+    return -2
+end
+
+-- Pre-warm loads stock ahead of the start and keeps it past the end
+local now = tonumber(ARGV[3])
+if now < tonumber(window[1]) then
+    return -3
+end
+if now >= tonumber(window[2]) then
+    return -4
+end
+
+if participated() then
+    return -1
+end
+
+if tonumber(stock) <= 0 then
+    return 0
+end
+
+redis.call('DECR', KEYS[1])
+markParticipated()
+redis.call('XADD', KEYS[3], '*', 'data', ARGV[2])
+return 1
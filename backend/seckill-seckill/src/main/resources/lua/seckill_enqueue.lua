@@ -0,0 +1,37 @@
+-- Enqueue an order whose stock unit was already taken from a local shard.
+--
+-- KEYS[1] participant set    seckill:users:{activityId}
+-- KEYS[2] order stream       seckill:stream
+-- KEYS[3] activity meta      seckill:meta:{activityId}
+-- KEYS[4] participant bloom  seckill:users:bloom:{activityId}, only in bloom mode
+-- ARGV[1] userId
+-- ARGV[2] stream payload     userId:activityId
+-- ARGV[3] now, epoch milliseconds
+-- ARGV[4..] Bloom filter bit offsets, only in bloom mode
+--
+-- Returns 1 success, -1 already participated, -2 not loaded, -3 not started, -4 ended
+local window = redis.call('HMGET', KEYS[3], 'startTime', 'endTime')
+if not window[1] or not window[2] then
+    return -2
+end
+-- Units claimed before the end may still be in the shard afterwards
+local now = tonumber(ARGV[3])
+if now < tonumber(window[1]) then
+    return -3
+end
+if now >= tonumber(window[2]) then
+    return -4
+end
+
+-- SADD is the membership check itself, the bitmap is only kept up to date
+if redis.call('SADD', KEYS[1], ARGV[1]) == 0 then
+    return -1
+end
+if #KEYS > 3 then
+    for i = 4, #ARGV do
+        redis.call('SETBIT', KEYS[4], ARGV[i], 1)
+    end
+end
+
+redis.call('XADD', KEYS[2], '*', 'data', ARGV[2])
+return 1
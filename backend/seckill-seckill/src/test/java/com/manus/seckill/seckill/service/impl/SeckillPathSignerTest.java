@@ -0,0 +1,170 @@
+package com.manus.seckill.seckill.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class SeckillPathSignerTest {
+
+    private static final long ACTIVITY_ID = 42L;
+    private static final long USER_ID = 1001L;
+
+    /**
+     * Length of one used-token generation, see SeckillPathSigner#rotate
+     */
+    private static final long GENERATION_SECONDS = 300 + 30;
+
+    @Test
+    void acceptsIssuedPath() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, false);
+
+        String path = signer.issue(ACTIVITY_ID, USER_ID);
+
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID, path));
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID, path));
+    }
+
+    @Test
+    void rejectsPathForAnotherUserOrActivity() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, false);
+
+        String path = signer.issue(ACTIVITY_ID, USER_ID);
+
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID + 1, path));
+        assertFalse(signer.verify(ACTIVITY_ID + 1, USER_ID, path));
+    }
+
+    @Test
+    void rejectsTamperedPath() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, false);
+        byte[] token = Base64.getUrlDecoder().decode(signer.issue(ACTIVITY_ID, USER_ID));
+
+        for (int i = 0; i < token.length; i++) {
+            byte[] tampered = token.clone();
+            tampered[i] ^= 0x01;
+            String path = Base64.getUrlEncoder().withoutPadding().encodeToString(tampered);
+            assertFalse(signer.verify(ACTIVITY_ID, USER_ID, path), "flipped bit in byte " + i);
+        }
+    }
+
+    @Test
+    void rejectsMalformedPath() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, false);
+        String path = signer.issue(ACTIVITY_ID, USER_ID);
+
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, null));
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, ""));
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, path.substring(1)));
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, "*" + path.substring(1)));
+    }
+
+    @Test
+    void rejectsExpiredPath() {
+        // A negative ttl issues a path that expired before it was handed out
+        SeckillPathSigner issuer = signer("secret-a", "", -10, false);
+        SeckillPathSigner verifier = signer("secret-a", "", 300, false);
+
+        String path = issuer.issue(ACTIVITY_ID, USER_ID);
+
+        assertFalse(verifier.verify(ACTIVITY_ID, USER_ID, path));
+    }
+
+    @Test
+    void rejectsExpiryBeyondTtlAndSkew() {
+        SeckillPathSigner issuer = signer("secret-a", "", 3600, false);
+        SeckillPathSigner verifier = signer("secret-a", "", 300, false);
+
+        String path = issuer.issue(ACTIVITY_ID, USER_ID);
+
+        assertFalse(verifier.verify(ACTIVITY_ID, USER_ID, path));
+    }
+
+    @Test
+    void acceptsPreviousSecretDuringRotation() {
+        SeckillPathSigner before = signer("secret-a", "", 300, false);
+        SeckillPathSigner during = signer("secret-b", "secret-a", 300, false);
+        SeckillPathSigner after = signer("secret-b", "", 300, false);
+
+        String oldPath = before.issue(ACTIVITY_ID, USER_ID);
+        String newPath = during.issue(ACTIVITY_ID, USER_ID);
+
+        assertTrue(during.verify(ACTIVITY_ID, USER_ID, oldPath));
+        assertTrue(during.verify(ACTIVITY_ID, USER_ID, newPath));
+        assertFalse(after.verify(ACTIVITY_ID, USER_ID, oldPath));
+        assertTrue(after.verify(ACTIVITY_ID, USER_ID, newPath));
+    }
+
+    @Test
+    void derivesKeyPerRotationWindow() {
+        // Same secret, different window length: the derived keys differ, so do the MACs
+        SeckillPathSigner daily = signer("secret-a", "", 300, false);
+        SeckillPathSigner hourly = signer("secret-a", "", 300, false, 1);
+
+        String path = daily.issue(ACTIVITY_ID, USER_ID);
+
+        assertNotEquals(path, hourly.issue(ACTIVITY_ID, USER_ID));
+        assertFalse(hourly.verify(ACTIVITY_ID, USER_ID, path));
+    }
+
+    @Test
+    void oneTimePathIsRejectedOnlyOnceMarkedUsed() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, true);
+        String path = signer.issue(ACTIVITY_ID, USER_ID);
+
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID, path));
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID, path));
+
+        signer.markUsed(path);
+
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, path));
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID + 1, signer.issue(ACTIVITY_ID, USER_ID + 1)));
+    }
+
+    @Test
+    void usedPathSurvivesOneGenerationRotation() {
+        SeckillPathSigner signer = signer("secret-a", "", 300, true);
+        String path = signer.issue(ACTIVITY_ID, USER_ID);
+        signer.markUsed(path);
+        Object firstGeneration = getField(signer, "usedCurrent");
+
+        ageUsedGeneration(signer);
+
+        assertFalse(signer.verify(ACTIVITY_ID, USER_ID, path));
+        assertSame(firstGeneration, getField(signer, "usedPrevious"));
+
+        // Two generations on, the path would have expired anyway and is forgotten
+        ageUsedGeneration(signer);
+
+        assertTrue(signer.verify(ACTIVITY_ID, USER_ID, path));
+    }
+
+    private static void ageUsedGeneration(SeckillPathSigner signer) {
+        setField(signer, "usedSince", System.currentTimeMillis() / 1000 - GENERATION_SECONDS);
+    }
+
+    private static SeckillPathSigner signer(String secret, String previousSecret, long ttlSeconds, boolean oneTime) {
+        return signer(secret, previousSecret, ttlSeconds, oneTime, 24);
+    }
+
+    private static SeckillPathSigner signer(String secret, String previousSecret, long ttlSeconds, boolean oneTime,
+                                            long rotationHours) {
+        SeckillPathSigner signer = new SeckillPathSigner();
+        setField(signer, "secret", secret);
+        setField(signer, "previousSecret", previousSecret);
+        setField(signer, "ttlSeconds", ttlSeconds);
+        setField(signer, "rotationHours", rotationHours);
+        setField(signer, "oneTime", oneTime);
+        setField(signer, "expectedPerTtl", 10_000L);
+        setField(signer, "fpp", 0.0001);
+        signer.init();
+        return signer;
+    }
+
+}
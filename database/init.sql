@@ -32,6 +32,7 @@ CREATE TABLE IF NOT EXISTS `t_seckill_activity` (
   `product_id` BIGINT NOT NULL COMMENT 'Product ID',
   `seckill_price` DECIMAL(10, 2) NOT NULL COMMENT 'Seckill price',
   `seckill_stock` INT NOT NULL DEFAULT 0 COMMENT 'Seckill stock',
+  `remaining_stock` INT NULL COMMENT 'Stock left in Redis when the ended activity was reconciled',
   `start_time` DATETIME NOT NULL COMMENT 'Start time',
   `end_time` DATETIME NOT NULL COMMENT 'End time',
   `status` TINYINT NOT NULL DEFAULT 0 COMMENT 'Status: 1=active, 0=not started, -1=ended',
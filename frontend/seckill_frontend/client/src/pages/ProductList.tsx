@@ -20,19 +20,23 @@ interface SeckillActivity {
 export default function ProductList() {
   const [, setLocation] = useLocation();
   const [activities, setActivities] = useState<SeckillActivity[]>([]);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
     fetchActivities();
   }, []);
 
-  const fetchActivities = async () => {
+  const fetchActivities = async (cursor?: number) => {
     try {
-      const response = await fetch("http://localhost:8080/product/seckill/list");
+      const query = cursor ? `?cursor=${cursor}` : "";
+      const response = await fetch(`http://localhost:8080/product/seckill/list${query}`);
       const result = await response.json();
 
       if (result.code === 200) {
-        setActivities(result.data || []);
+        const items: SeckillActivity[] = result.data?.items || [];
+        setActivities((previous) => (cursor ? [...previous, ...items] : items));
+        setNextCursor(result.data?.nextCursor ?? null);
       } else {
         toast.error("Failed to load seckill activities");
       }
@@ -150,6 +154,14 @@ export default function ProductList() {
             ))}
           </div>
         )}
+
+        {nextCursor !== null && (
+          <div className="mt-8 text-center">
+            <Button variant="outline" onClick={() => fetchActivities(nextCursor)}>
+              Load More
+            </Button>
+          </div>
+        )}
       </main>
     </div>
   );
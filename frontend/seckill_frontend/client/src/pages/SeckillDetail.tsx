@@ -91,7 +91,7 @@ export default function SeckillDetail() {
     setParticipating(true);
 
     try {
-      const response = await fetch(`http://localhost:8080/seckill/doSeckill/${seckillPath}`, {
+      const response = await fetch(`http://localhost:8080/seckill/doSeckill/${seckillPath}?activityId=${params.id}`, {
         method: "POST",
         headers: {
           "Content-Type": "application/json",